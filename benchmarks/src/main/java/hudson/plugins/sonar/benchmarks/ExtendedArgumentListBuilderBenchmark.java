@@ -0,0 +1,98 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.benchmarks;
+
+import hudson.plugins.sonar.utils.ExtendedArgumentListBuilder;
+import hudson.util.ArgumentListBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arguments of analyses with thousands of properties, appended to the command line or collected in a properties file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ExtendedArgumentListBuilderBenchmark {
+
+  @Param({"1000", "10000"})
+  public int properties;
+
+  @Param({"true", "false"})
+  public boolean unix;
+
+  @Param({"false", "true"})
+  public boolean propertiesFile;
+
+  private String[] keys;
+  private String[] values;
+
+  @Setup
+  public void setUp() {
+    keys = new String[properties];
+    values = new String[properties];
+    for (int i = 0; i < properties; i++) {
+      keys[i] = "sonar.module" + i + ".sources";
+      // some values need quoting on Windows
+      values[i] = i % 10 == 0 ? " src/main/java&src/generated/java" + i + " " : "module" + i + "/src/main/java";
+    }
+  }
+
+  @Benchmark
+  public ArgumentListBuilder append() {
+    ArgumentListBuilder args = new ArgumentListBuilder();
+    ExtendedArgumentListBuilder builder = new ExtendedArgumentListBuilder(args, unix, propertiesFile ? new Properties() : null);
+    builder.appendMasked("sonar.login", "admin");
+    builder.appendMasked("sonar.password", "secret");
+    for (int i = 0; i < keys.length; i++) {
+      builder.append(keys[i], values[i]);
+    }
+    return args;
+  }
+}
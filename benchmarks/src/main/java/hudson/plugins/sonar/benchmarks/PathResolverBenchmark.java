@@ -0,0 +1,121 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.benchmarks;
+
+import hudson.FilePath;
+import hudson.plugins.sonar.utils.PathResolverOperator;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of the path patterns of an analysis over generated workspaces of 10k to 1M files.
+ * Resolutions aren't cached, so that each one walks the workspace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class PathResolverBenchmark {
+
+  private static final int FILES_PER_MODULE = 1000;
+  private static final int FILES_PER_PACKAGE = 50;
+
+  @Param({"10000", "100000", "1000000"})
+  public int files;
+
+  @Param({"1", "4"})
+  public int parallelism;
+
+  private File workspace;
+  private PathResolverOperator operator;
+  private Properties properties;
+
+  @Setup
+  public void setUp() throws IOException, InterruptedException {
+    workspace = File.createTempFile("sonar-benchmark", "");
+    workspace.delete();
+    for (int i = 0; i < files; i++) {
+      int module = i / FILES_PER_MODULE;
+      File moduleDir = new File(workspace, "module-" + module);
+      String folder = i % 2 == 0 ? "src/main/java" : "src/test/java";
+      File packageDir = new File(moduleDir, folder + "/p" + (i % FILES_PER_MODULE) / FILES_PER_PACKAGE);
+      if (i % FILES_PER_PACKAGE < 2) {
+        packageDir.mkdirs();
+      }
+      if (i % FILES_PER_MODULE == 0) {
+        new File(moduleDir, "target/classes").mkdirs();
+        new File(moduleDir, "lib").mkdirs();
+        new File(moduleDir, "lib/dependency-" + module + ".jar").createNewFile();
+      }
+      new File(packageDir, "C" + i + ".java").createNewFile();
+    }
+
+    operator = new PathResolverOperator(new FilePath(workspace));
+    operator.setParallelism(parallelism);
+    properties = new Properties();
+    properties.setProperty(PathResolverOperator.SONAR_SOURCES, "**/src/main/java");
+    properties.setProperty(PathResolverOperator.SONAR_TEST, "**/src/test/java");
+    properties.setProperty(PathResolverOperator.SONAR_JAVA_BINARIES_INCLUDE, "**/target/classes");
+    properties.setProperty(PathResolverOperator.SONAR_JAVA_LIBRARIES_INCLUDE, "**/lib/*.jar");
+    properties.setProperty("sonar.projectKey", "org.example:project");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(workspace);
+  }
+
+  @Benchmark
+  public Properties resolvePaths() throws IOException, InterruptedException {
+    return operator.resolvePaths(properties);
+  }
+}
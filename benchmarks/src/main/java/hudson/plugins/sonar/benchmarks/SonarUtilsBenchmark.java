@@ -0,0 +1,147 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.benchmarks;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.plugins.sonar.utils.SonarUtils;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Search of the dashboard URL in build logs of 1 MB to 1 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SonarUtilsBenchmark {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Param({"1", "64", "1024"})
+  public int logSizeMb;
+
+  /**
+   * Whether the URL is printed at the end of the log, as after a successful analysis, or not at all
+   */
+  @Param({"true", "false"})
+  public boolean urlPrinted;
+
+  /**
+   * Compressed logs are read forward through {@link AbstractBuild#getLogReader()} instead of backward
+   */
+  @Param({"false", "true"})
+  public boolean compressed;
+
+  private File log;
+  private AbstractBuild<?, ?> build;
+
+  @Setup
+  public void setUp() throws IOException {
+    // only the name tells a compressed log apart, the content stays plain so that both paths read the same lines
+    log = File.createTempFile("sonar-benchmark", compressed ? ".log.gz" : ".log");
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(log), UTF_8));
+    try {
+      long size = logSizeMb * 1024L * 1024L;
+      long written = 0;
+      for (int i = 0; written < size; i++) {
+        String line = "[INFO] Compiling 42 source files to module-" + i + "/target/classes\n";
+        writer.write(line);
+        written += line.length();
+      }
+      if (urlPrinted) {
+        writer.write("[INFO] ANALYSIS SUCCESSFUL, you can browse http://localhost:9000/dashboard/index/org.example:project\n");
+      }
+      writer.write("[INFO] BUILD SUCCESS\n");
+    } finally {
+      writer.close();
+    }
+
+    // stub only, so that millions of invocations aren't recorded
+    AbstractProject<?, ?> project = mock(AbstractProject.class, withSettings().stubOnly());
+    when(project.getFullName()).thenReturn("benchmark");
+    build = mock(AbstractBuild.class, withSettings().stubOnly());
+    doReturn(project).when(build).getProject();
+    when(build.getLogFile()).thenReturn(log);
+    when(build.getCharset()).thenReturn(UTF_8);
+    when(build.getLogReader()).thenAnswer(new Answer<Reader>() {
+      @Override
+      public Reader answer(InvocationOnMock invocation) throws IOException {
+        return new InputStreamReader(new FileInputStream(log), UTF_8);
+      }
+    });
+  }
+
+  @TearDown
+  public void tearDown() {
+    log.delete();
+  }
+
+  @Benchmark
+  public String extractSonarProjectURLFromLogs() throws IOException {
+    return SonarUtils.extractSonarProjectURLFromLogs(build);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.benchmarks;
+
+import hudson.EnvVars;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Cause;
+import hudson.model.Result;
+import hudson.plugins.sonar.model.TriggersConfig;
+import hudson.triggers.SCMTrigger;
+import hudson.util.VariableResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Skip decision of builds triggered by many causes, all of them blacklisted but a remote cause if any.
+ * Mocks called by the benchmarks are stub only, so that they don't record millions of invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TriggersConfigBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int causes;
+
+  /**
+   * Whether a cause which isn't blacklisted comes last, so that the analysis isn't skipped
+   */
+  @Param({"false", "true"})
+  public boolean analyzed;
+
+  private TriggersConfig triggers;
+  private AbstractBuild<?, ?> build;
+  private BuildListener listener;
+
+  @Setup
+  public void setUp() throws IOException, InterruptedException {
+    triggers = new TriggersConfig(true, true, "SKIP_SONAR");
+
+    List<Cause> buildCauses = new ArrayList<Cause>();
+    for (int i = 0; i < causes; i++) {
+      buildCauses.add(i % 2 == 0 ? new SCMTrigger.SCMTriggerCause("") : mock(Cause.UpstreamCause.class));
+    }
+    if (analyzed) {
+      buildCauses.set(causes - 1, new Cause.RemoteCause("localhost", "benchmark"));
+    }
+
+    listener = mock(BuildListener.class, withSettings().stubOnly());
+    build = mock(AbstractBuild.class, withSettings().stubOnly());
+    when(build.getResult()).thenReturn(Result.SUCCESS);
+    when(build.getCauses()).thenReturn(buildCauses);
+    when(build.getBuildVariableResolver()).thenReturn(new VariableResolver.ByMap<String>(Collections.<String, String>emptyMap()));
+    when(build.getEnvironment(any(BuildListener.class))).thenReturn(new EnvVars());
+  }
+
+  @Benchmark
+  public String isSkipSonar() throws IOException, InterruptedException {
+    return triggers.isSkipSonar(build, listener);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.TaskListener;
+import org.apache.commons.lang.StringUtils;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Digest of everything an analysis depends on: the SCM revision, the SonarQube installation and the effective analysis settings.
+ * Two builds with the same fingerprint would produce the same analysis.
+ *
+ * @since 2.3
+ */
+final class AnalysisFingerprint {
+
+  /**
+   * Environment variables contributed by SCM plugins for the built revision
+   */
+  private static final String[] REVISION_VARIABLES = {"GIT_COMMIT", "SVN_REVISION", "MERCURIAL_REVISION", "P4_CHANGELIST", "BZR_REVISION"};
+
+  private AnalysisFingerprint() {
+  }
+
+  /**
+   * @param workspace remote path of the workspace, replaced in the settings so that the fingerprint doesn't depend on the node
+   * @param settings effective analysis settings
+   * @return the fingerprint, or null if the built revision is unknown
+   */
+  @CheckForNull
+  static String of(EnvVars env, SonarInstallation installation, String workspace, Collection<String> settings) {
+    StringBuilder input = new StringBuilder();
+    for (String variable : REVISION_VARIABLES) {
+      String revision = env.get(variable);
+      if (StringUtils.isNotBlank(revision)) {
+        input.append(variable).append('=').append(revision).append('\n');
+      }
+    }
+    if (input.length() == 0) {
+      return null;
+    }
+    input.append(installation.getName()).append('\n')
+      .append(installation.getServerUrl()).append('\n')
+      .append(installation.getDatabaseUrl()).append('\n');
+
+    List<String> sortedSettings = new ArrayList<String>();
+    for (String setting : settings) {
+      sortedSettings.add(StringUtils.replace(setting, workspace, "${WORKSPACE}"));
+    }
+    Collections.sort(sortedSettings);
+    for (String setting : sortedSettings) {
+      input.append(setting).append('\n');
+    }
+    return Util.getDigestOf(input.toString());
+  }
+
+  /**
+   * Settings files may be generated by the build, so their content may change without a new revision.
+   *
+   * @return setting standing for the content of the given file
+   */
+  static String contentOf(String name, FilePath file) throws IOException, InterruptedException {
+    return name + ".content=" + file.digest();
+  }
+
+  /**
+   * Attaches the dashboard of a previous analysis with the same fingerprint to the build, if any.
+   *
+   * @return true if the analysis of the build can be skipped
+   */
+  static boolean reuseAnalysis(AbstractBuild<?, ?> build, @CheckForNull String fingerprint, TaskListener listener) {
+    if (fingerprint == null) {
+      return false;
+    }
+    SonarProjectRecord.AnalyzedBuild analyzed = SonarProjectRecord.findAnalysis(build.getProject(), fingerprint);
+    if (analyzed == null) {
+      return false;
+    }
+    listener.getLogger().println(Messages.SonarPublisher_AnalysisReused(analyzed.getNumber(), analyzed.getUrl()));
+    if (build.getAction(BuildSonarAction.class) == null) {
+      build.addAction(new BuildSonarAction(analyzed.getUrl()));
+    }
+    return true;
+  }
+}
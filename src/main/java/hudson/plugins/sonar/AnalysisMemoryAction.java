@@ -0,0 +1,129 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.model.InvisibleAction;
+
+/**
+ * Heap usage of the analysis JVM of a build, from which the heap of the next analyses is sized.
+ *
+ * @since 2.3
+ */
+public final class AnalysisMemoryAction extends InvisibleAction {
+
+  /**
+   * An analysis spending more of its time in GC lacks heap
+   */
+  private static final double MAX_GC_RATIO = 0.3;
+
+  /**
+   * A failed analysis using more of its heap probably ran out of memory
+   */
+  private static final double MAX_HEAP_RATIO = 0.9;
+
+  private final int heapSize;
+  private final int peakHeap;
+  private final int liveHeap;
+  private final int committedHeap;
+  private final long gcTime;
+  private final long duration;
+  private final boolean success;
+
+  /**
+   * @param heapSize maximum heap given to the analysis in MB, 0 if not given by the plugin
+   * @param peakHeap maximum heap used before a GC in MB
+   * @param liveHeap maximum heap still used after a full GC in MB, or after any GC if there was no full GC
+   * @param committedHeap maximum heap committed by the JVM in MB
+   * @param gcTime time spent in GC in milliseconds
+   * @param duration duration of the analysis in milliseconds
+   */
+  public AnalysisMemoryAction(int heapSize, int peakHeap, int liveHeap, int committedHeap, long gcTime, long duration, boolean success) {
+    this.heapSize = heapSize;
+    this.peakHeap = peakHeap;
+    this.liveHeap = liveHeap;
+    this.committedHeap = committedHeap;
+    this.gcTime = gcTime;
+    this.duration = duration;
+    this.success = success;
+  }
+
+  public int getHeapSize() {
+    return heapSize;
+  }
+
+  public int getPeakHeap() {
+    return peakHeap;
+  }
+
+  public int getLiveHeap() {
+    return liveHeap;
+  }
+
+  public int getCommittedHeap() {
+    return committedHeap;
+  }
+
+  public long getGcTime() {
+    return gcTime;
+  }
+
+  public long getDuration() {
+    return duration;
+  }
+
+  public boolean isSuccess() {
+    return success;
+  }
+
+  /**
+   * @return percentage of the analysis spent in GC
+   */
+  public int getGcPercentage() {
+    return duration > 0 ? (int) (gcTime * 100 / duration) : 0;
+  }
+
+  /**
+   * @return false if no collection was logged, in which case the heap usage of the analysis is unknown
+   */
+  public boolean hasCollections() {
+    return committedHeap > 0;
+  }
+
+  /**
+   * @return true if the analysis lacked heap
+   */
+  public boolean isMemoryPressure() {
+    return hasCollections() && ((duration > 0 && gcTime > duration * MAX_GC_RATIO) || (!success && peakHeap >= committedHeap * MAX_HEAP_RATIO));
+  }
+}
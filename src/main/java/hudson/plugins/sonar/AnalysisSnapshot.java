@@ -0,0 +1,272 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.model.AbstractBuild;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Copy of the workspace files needed by an analysis on another node than the one of the build.
+ * Files are streamed as a compressed tar over the remoting channels, and the absolute paths of the analysis properties
+ * are relocated into the copy.
+ *
+ * @since 2.3
+ */
+final class AnalysisSnapshot {
+
+  /**
+   * Properties listing the paths read by the analysis, relative to the project base directory or absolute.
+   */
+  private static final String[] PATH_PROPERTIES = {"sonar.sources", "sonar.tests", "sonar.binaries", "sonar.libraries",
+    "sonar.java.binaries", "sonar.java.libraries", "sonar.junit.reportsPath", "sonar.surefire.reportsPath", "sonar.jacoco.reportPath",
+    "sonar.jacoco.itReportPath", "sonar.cobertura.reportPath"};
+
+  private final Node node;
+  private final FilePath workspace;
+  private final FilePath moduleRoot;
+  private final FilePath target;
+
+  AnalysisSnapshot(AbstractBuild<?, ?> build, Node node) throws AbortException {
+    this(build, build.getWorkspace(), build.getModuleRoot(), node);
+  }
+
+  /**
+   * @param moduleRoot module root of the build, within the workspace
+   */
+  AnalysisSnapshot(AbstractBuild<?, ?> build, FilePath workspace, FilePath moduleRoot, Node node) throws AbortException {
+    FilePath rootPath = node.getRootPath();
+    if (rootPath == null) {
+      throw new AbortException("Node " + node.getDisplayName() + " is offline");
+    }
+    this.node = node;
+    this.workspace = workspace;
+    this.moduleRoot = moduleRoot;
+    this.target = rootPath.child("sonar-analysis").child(build.getProject().getFullName().replace('/', '_') + "_" + build.getNumber());
+  }
+
+  /**
+   * Analyses holding a snapshot, by node name. They don't take an executor of the node, so the busy executors don't tell
+   * how loaded the node is.
+   */
+  private static final Map<String, Integer> IN_FLIGHT = new HashMap<String, Integer>();
+
+  private boolean reserved;
+
+  /**
+   * Selects the node of the analysis and counts the analysis on it until {@link #release()}.
+   *
+   * @return snapshot on the online node matching the label expression with the fewest analyses in flight, or null if none
+   */
+  @CheckForNull
+  static synchronized AnalysisSnapshot reserve(AbstractBuild<?, ?> build, String labelExpression) throws AbortException {
+    Node node = selectNode(labelExpression);
+    if (node == null) {
+      return null;
+    }
+    AnalysisSnapshot snapshot = new AnalysisSnapshot(build, node);
+    IN_FLIGHT.put(node.getNodeName(), getInFlight(node) + 1);
+    snapshot.reserved = true;
+    return snapshot;
+  }
+
+  /**
+   * @return the online node matching the label expression with the fewest analyses in flight, then the fewest busy executors,
+   * or null if none
+   */
+  @CheckForNull
+  private static Node selectNode(String labelExpression) {
+    Label label = Jenkins.getInstance().getLabel(labelExpression);
+    if (label == null) {
+      return null;
+    }
+    Node selected = null;
+    int selectedInFlight = Integer.MAX_VALUE;
+    int selectedBusy = Integer.MAX_VALUE;
+    for (Node candidate : label.getNodes()) {
+      Computer computer = candidate.toComputer();
+      if (computer == null || !computer.isOnline() || computer.getChannel() == null) {
+        continue;
+      }
+      int inFlight = getInFlight(candidate);
+      int busy = computer.countBusy();
+      if (inFlight < selectedInFlight || (inFlight == selectedInFlight && busy < selectedBusy)) {
+        selected = candidate;
+        selectedInFlight = inFlight;
+        selectedBusy = busy;
+      }
+    }
+    return selected;
+  }
+
+  static synchronized int getInFlight(Node node) {
+    Integer inFlight = IN_FLIGHT.get(node.getNodeName());
+    return inFlight != null ? inFlight : 0;
+  }
+
+  /**
+   * Stops counting the analysis on its node.
+   */
+  void release() {
+    synchronized (AnalysisSnapshot.class) {
+      if (!reserved) {
+        return;
+      }
+      reserved = false;
+      int inFlight = getInFlight(node) - 1;
+      if (inFlight > 0) {
+        IN_FLIGHT.put(node.getNodeName(), inFlight);
+      } else {
+        IN_FLIGHT.remove(node.getNodeName());
+      }
+    }
+  }
+
+  Node getNode() {
+    return node;
+  }
+
+  /**
+   * @return copy of the module root of the build
+   */
+  FilePath getModuleRoot() {
+    String moduleRootPath = relativize(moduleRoot.getRemote());
+    return moduleRootPath.isEmpty() ? target : target.child(moduleRootPath);
+  }
+
+  FilePath getTarget() {
+    return target;
+  }
+
+  /**
+   * @return path of the SonarQube Runner executable on the node, or null if not found
+   */
+  @CheckForNull
+  String findExecutable(SonarRunnerInstallation runnerInstallation) throws IOException, InterruptedException {
+    return target.getParent().act(new SonarRunnerPreflight(runnerInstallation, Collections.<String>emptyList())).getExecutable();
+  }
+
+  /**
+   * Copies the files read by the analysis into the snapshot.
+   *
+   * @return analysis properties with the workspace paths relocated into the snapshot
+   */
+  Properties copy(Properties analysisProperties, TaskListener listener) throws IOException, InterruptedException {
+    String includes = StringUtils.join(getIncludes(analysisProperties, listener), ',');
+    listener.getLogger().println("Copying " + includes + " to " + target.getRemote() + " on " + node.getDisplayName());
+    target.deleteRecursive();
+    workspace.copyRecursiveTo(includes, null, target);
+    getModuleRoot().mkdirs();
+
+    Properties relocated = new Properties();
+    for (Entry<Object, Object> entry : analysisProperties.entrySet()) {
+      relocated.put(entry.getKey(), StringUtils.replace(entry.getValue().toString(), workspace.getRemote(), target.getRemote()));
+    }
+    return relocated;
+  }
+
+  void delete() throws IOException, InterruptedException {
+    target.deleteRecursive();
+  }
+
+  /**
+   * @return Ant patterns of the files read by the analysis, relative to the workspace
+   */
+  Set<String> getIncludes(Properties analysisProperties, TaskListener listener) {
+    Set<String> includes = new LinkedHashSet<String>();
+    if (analysisProperties.containsKey("sonar.modules")) {
+      // each module has its own paths
+      includes.add("**");
+      return includes;
+    }
+    String moduleRootPath = relativize(moduleRoot.getRemote());
+    for (String key : PATH_PROPERTIES) {
+      String value = analysisProperties.getProperty(key);
+      if (value == null) {
+        continue;
+      }
+      for (String path : StringUtils.split(value, ',')) {
+        path = path.trim().replace('\\', '/');
+        if (isAbsolute(path)) {
+          String workspacePath = workspace.getRemote().replace('\\', '/');
+          if (!path.startsWith(workspacePath)) {
+            listener.getLogger().println("Path " + path + " is out of the workspace and won't be available on " + node.getDisplayName());
+            continue;
+          }
+          path = StringUtils.removeStart(path.substring(workspacePath.length()), "/");
+        } else if (!moduleRootPath.isEmpty()) {
+          path = moduleRootPath + "/" + path;
+        }
+        if (path.isEmpty()) {
+          includes.add("**");
+        } else {
+          // a file or a directory
+          includes.add(path);
+          includes.add(path + "/**");
+        }
+      }
+    }
+    if (includes.isEmpty()) {
+      includes.add("**");
+    }
+    return includes;
+  }
+
+  /**
+   * @return path relative to the workspace, with slashes
+   */
+  private String relativize(String path) {
+    return StringUtils.removeStart(StringUtils.removeStart(path, workspace.getRemote()).replace('\\', '/'), "/");
+  }
+
+  private static boolean isAbsolute(String path) {
+    return path.startsWith("/") || path.matches("[A-Za-z]:/.*");
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.model.TaskListener;
+
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Limits the number of concurrent analyses against a {@link SonarInstallation}.
+ * Analyses are started in the order they asked for a permit. Builds and post build actions perform on the master,
+ * so the limit applies to the analyses of all the executors.
+ *
+ * @since 2.3
+ */
+final class AnalysisThrottle {
+
+  private static final ConcurrentMap<String, AnalysisThrottle> THROTTLES = new ConcurrentHashMap<String, AnalysisThrottle>();
+
+  private final String installationName;
+  private final LinkedList<Object> waiting = new LinkedList<Object>();
+  private int running;
+  private int limit;
+
+  private AnalysisThrottle(String installationName) {
+    this.installationName = installationName;
+  }
+
+  static AnalysisThrottle of(SonarInstallation installation) {
+    String name = installation.getName();
+    AnalysisThrottle throttle = THROTTLES.get(name);
+    if (throttle == null) {
+      THROTTLES.putIfAbsent(name, new AnalysisThrottle(name));
+      throttle = THROTTLES.get(name);
+    }
+    return throttle;
+  }
+
+  /**
+   * Waits until fewer than the given number of analyses are running and all the analyses which asked before got their permit.
+   * Each call must be followed by a call to {@link #release()}.
+   *
+   * @param maxConcurrentAnalyses maximum number of running analyses, 0 or less for no limit
+   */
+  synchronized void acquire(int maxConcurrentAnalyses, TaskListener listener) throws InterruptedException {
+    limit = maxConcurrentAnalyses;
+    // a raised limit may let waiting analyses start
+    notifyAll();
+    Object ticket = new Object();
+    waiting.add(ticket);
+    try {
+      int position = 0;
+      while (waiting.getFirst() != ticket || (limit > 0 && running >= limit)) {
+        int newPosition = waiting.indexOf(ticket) + 1;
+        if (newPosition != position) {
+          position = newPosition;
+          listener.getLogger().println(Messages.AnalysisThrottle_Waiting(installationName, position, running));
+        }
+        wait();
+      }
+    } catch (InterruptedException e) {
+      waiting.remove(ticket);
+      notifyAll();
+      throw e;
+    }
+    waiting.removeFirst();
+    running++;
+    // the next one may start as well
+    notifyAll();
+  }
+
+  synchronized void release() {
+    running--;
+    notifyAll();
+  }
+
+  synchronized int getRunning() {
+    return running;
+  }
+
+  synchronized int getWaiting() {
+    return waiting.size();
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.plugins.sonar.utils.SonarUrlCaptureStream;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Time spent by an analysis in each of its phases, in milliseconds. Phases which didn't happen take 0 ms.
+ *
+ * @since 2.3
+ */
+@ExportedBean
+public final class AnalysisTimings {
+
+  enum Phase {
+    QUEUE("queue"),
+    PREFLIGHT("preflight"),
+    PATH_RESOLUTION("path resolution"),
+    ARGUMENTS("arguments"),
+    LAUNCH("launch"),
+    ANALYSIS("analysis"),
+    URL_EXTRACTION("URL extraction"),
+    UPLOAD("upload");
+
+    private final String label;
+
+    Phase(String label) {
+      this.label = label;
+    }
+  }
+
+  private final Map<Phase, Long> durations = new EnumMap<Phase, Long>(Phase.class);
+
+  synchronized void add(Phase phase, long duration) {
+    durations.put(phase, get(phase) + duration);
+  }
+
+  void addSince(Phase phase, long startTime) {
+    add(phase, System.currentTimeMillis() - startTime);
+  }
+
+  /**
+   * Splits the life of the analysis process at its first output.
+   */
+  void addProcess(SonarUrlCaptureStream urlCapture, long launchStart) {
+    long end = System.currentTimeMillis();
+    long firstOutput = urlCapture.getFirstOutputTime();
+    if (firstOutput > 0) {
+      add(Phase.LAUNCH, firstOutput - launchStart);
+      add(Phase.ANALYSIS, end - firstOutput);
+    } else {
+      add(Phase.LAUNCH, end - launchStart);
+    }
+    add(Phase.URL_EXTRACTION, urlCapture.getMatchTime());
+    add(Phase.UPLOAD, urlCapture.getUploadTime());
+  }
+
+  synchronized long get(Phase phase) {
+    Long duration = durations.get(phase);
+    return duration != null ? duration : 0;
+  }
+
+  /**
+   * @return time waiting for a free analysis slot of the SonarQube installation
+   */
+  @Exported(visibility = 2)
+  public long getQueue() {
+    return get(Phase.QUEUE);
+  }
+
+  /**
+   * @return time checking the workspace, the runner executable and the project settings on the node
+   */
+  @Exported(visibility = 2)
+  public long getPreflight() {
+    return get(Phase.PREFLIGHT);
+  }
+
+  @Exported(visibility = 2)
+  public long getPathResolution() {
+    return get(Phase.PATH_RESOLUTION);
+  }
+
+  /**
+   * @return time building the analysis arguments, path resolution excluded
+   */
+  @Exported(visibility = 2)
+  public long getArguments() {
+    return get(Phase.ARGUMENTS);
+  }
+
+  /**
+   * @return time from the launch of the analysis process to its first output
+   */
+  @Exported(visibility = 2)
+  public long getLaunch() {
+    return get(Phase.LAUNCH);
+  }
+
+  /**
+   * @return time from the first output of the analysis process to its end
+   */
+  @Exported(visibility = 2)
+  public long getAnalysis() {
+    return get(Phase.ANALYSIS);
+  }
+
+  /**
+   * @return time searching the URL of the project dashboard in the output of the analysis
+   */
+  @Exported(visibility = 2)
+  public long getUrlExtraction() {
+    return get(Phase.URL_EXTRACTION);
+  }
+
+  /**
+   * @return upload time of the analysis report, as logged by SonarQube 5.2 and later
+   */
+  @Exported(visibility = 2)
+  public long getUpload() {
+    return get(Phase.UPLOAD);
+  }
+
+  /**
+   * @return duration of each phase which happened, e.g. "queue 0 ms, analysis 1234 ms"
+   */
+  public synchronized String getSummary() {
+    StringBuilder summary = new StringBuilder();
+    for (Map.Entry<Phase, Long> entry : durations.entrySet()) {
+      if (summary.length() > 0) {
+        summary.append(", ");
+      }
+      summary.append(entry.getKey().label).append(' ').append(entry.getValue()).append(" ms");
+    }
+    return summary.toString();
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.ResourceList;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueListener;
+import hudson.model.queue.QueueTaskDispatcher;
+import hudson.model.queue.SubTask;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+import org.acegisecurity.Authentication;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs analyses as queue tasks of their own, so that the build releases its executor without waiting for them.
+ * The analysis reads the workspace of the build, so it runs on the node of the build, where the next builds of the job
+ * are kept out until it's over. They may still run on other nodes.
+ *
+ * @since 2.3
+ */
+public final class AsyncAnalysis {
+
+  /**
+   * Number of queued and running analyses by job and node, builds of a job may run concurrently
+   */
+  private static final ConcurrentMap<String, AtomicInteger> RUNNING = new ConcurrentHashMap<String, AtomicInteger>();
+
+  private AsyncAnalysis() {
+    // Utility class
+  }
+
+  /**
+   * @return false if the analysis could not be queued
+   */
+  static boolean start(AbstractBuild<?, ?> build, Runnable analysis) {
+    Task task = new Task(build, analysis);
+    Jenkins jenkins = Jenkins.getInstance();
+    if (jenkins == null || jenkins.getQueue().schedule(task, 0) == null) {
+      task.done();
+      return false;
+    }
+    return true;
+  }
+
+  static boolean isRunning(AbstractProject<?, ?> project, String nodeName) {
+    AtomicInteger count = RUNNING.get(getKey(project, nodeName));
+    return count != null && count.get() > 0;
+  }
+
+  private static String getKey(AbstractProject<?, ?> project, String nodeName) {
+    return project.getFullName() + '@' + nodeName;
+  }
+
+  private static void increment(String key) {
+    while (true) {
+      AtomicInteger count = RUNNING.get(key);
+      if (count == null) {
+        if (RUNNING.putIfAbsent(key, new AtomicInteger(1)) == null) {
+          return;
+        }
+        continue;
+      }
+      int current = count.get();
+      // a count down to 0 is being removed, it's never incremented again
+      if (current > 0 && count.compareAndSet(current, current + 1)) {
+        return;
+      }
+      if (current == 0) {
+        RUNNING.remove(key, count);
+      }
+    }
+  }
+
+  private static void decrement(String key) {
+    AtomicInteger count = RUNNING.get(key);
+    if (count != null && count.decrementAndGet() == 0) {
+      RUNNING.remove(key, count);
+    }
+  }
+
+  /**
+   * Analysis of a build, bound to the node of the build since it reads its workspace. It isn't persisted with the queue,
+   * as the analysis is lost on restart anyway.
+   */
+  static final class Task implements Queue.TransientTask {
+    private final AbstractBuild<?, ?> build;
+    private final Runnable analysis;
+    private final String key;
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    Task(AbstractBuild<?, ?> build, Runnable analysis) {
+      this.build = build;
+      this.analysis = analysis;
+      this.key = getKey(build.getProject(), build.getBuiltOnStr());
+      increment(key);
+    }
+
+    /**
+     * Stops keeping the next builds of the job out of the node, once the analysis is over or cancelled.
+     */
+    void done() {
+      if (!done.compareAndSet(false, true)) {
+        return;
+      }
+      decrement(key);
+      Jenkins jenkins = Jenkins.getInstance();
+      if (jenkins != null) {
+        // builds blocked by this analysis may start
+        jenkins.getQueue().scheduleMaintenance();
+      }
+    }
+
+    @Override
+    public Label getAssignedLabel() {
+      Node node = build.getBuiltOn();
+      return node != null ? node.getSelfLabel() : null;
+    }
+
+    @Override
+    public Node getLastBuiltOn() {
+      return build.getBuiltOn();
+    }
+
+    @Override
+    public boolean isBuildBlocked() {
+      return false;
+    }
+
+    @Override
+    public String getWhyBlocked() {
+      return null;
+    }
+
+    @Override
+    public CauseOfBlockage getCauseOfBlockage() {
+      return null;
+    }
+
+    @Override
+    public String getName() {
+      return getDisplayName();
+    }
+
+    @Override
+    public String getFullDisplayName() {
+      return getDisplayName();
+    }
+
+    @Override
+    public String getDisplayName() {
+      return Messages.AsyncAnalysis_DisplayName(build.getFullDisplayName());
+    }
+
+    @Override
+    public long getEstimatedDuration() {
+      return -1;
+    }
+
+    @Override
+    public Queue.Executable createExecutable() {
+      return new Execution(this);
+    }
+
+    @Override
+    public Queue.Task getOwnerTask() {
+      return this;
+    }
+
+    @Override
+    public Object getSameNodeConstraint() {
+      return null;
+    }
+
+    @Override
+    public void checkAbortPermission() {
+      build.getProject().checkPermission(Item.CANCEL);
+    }
+
+    @Override
+    public boolean hasAbortPermission() {
+      return build.getProject().hasPermission(Item.CANCEL);
+    }
+
+    @Override
+    public String getUrl() {
+      return build.getUrl();
+    }
+
+    @Override
+    public boolean isConcurrentBuild() {
+      return true;
+    }
+
+    @Override
+    public Collection<? extends SubTask> getSubTasks() {
+      return Collections.singleton(this);
+    }
+
+    @Override
+    public Authentication getDefaultAuthentication() {
+      return ACL.SYSTEM;
+    }
+
+    @Override
+    public ResourceList getResourceList() {
+      return new ResourceList();
+    }
+  }
+
+  static final class Execution implements Queue.Executable {
+    private final Task task;
+
+    Execution(Task task) {
+      this.task = task;
+    }
+
+    @Override
+    public SubTask getParent() {
+      return task;
+    }
+
+    @Override
+    public long getEstimatedDuration() {
+      return task.getEstimatedDuration();
+    }
+
+    @Override
+    public void run() {
+      try {
+        task.analysis.run();
+      } finally {
+        task.done();
+      }
+    }
+
+    @Override
+    public String toString() {
+      return task.getDisplayName();
+    }
+  }
+
+  @Extension
+  public static final class QueueTaskDispatcherImpl extends QueueTaskDispatcher {
+    @Override
+    public CauseOfBlockage canTake(Node node, Queue.BuildableItem item) {
+      if (item.task instanceof AbstractProject && isRunning((AbstractProject<?, ?>) item.task, node.getNodeName())) {
+        return CauseOfBlockage.fromMessage(Messages._AsyncAnalysis_InProgress());
+      }
+      return null;
+    }
+  }
+
+  @Extension
+  public static final class QueueListenerImpl extends QueueListener {
+    @Override
+    public void onLeft(Queue.LeftItem item) {
+      if (item.isCancelled() && item.task instanceof Task) {
+        ((Task) item.task).done();
+      }
+    }
+  }
+}
@@ -50,12 +50,25 @@ public final class BuildSonarAction implements BuildBadgeAction {
 
   private final String url;
 
+  /**
+   * @since 2.3
+   */
+  private final AnalysisTimings timings;
+
   public BuildSonarAction() {
-    this.url = null;
+    this(null);
   }
 
   public BuildSonarAction(String url) {
+    this(url, null);
+  }
+
+  /**
+   * @since 2.3
+   */
+  public BuildSonarAction(String url, AnalysisTimings timings) {
     this.url = url;
+    this.timings = timings;
   }
 
   public String getTooltip() {
@@ -88,4 +101,13 @@ public final class BuildSonarAction implements BuildBadgeAction {
   public String getUrl() {
     return url;
   }
+
+  /**
+   * @return timings of the analysis phases, null for analyses of former versions
+   * @since 2.3
+   */
+  @Exported(visibility = 2)
+  public AnalysisTimings getTimings() {
+    return timings;
+  }
 }
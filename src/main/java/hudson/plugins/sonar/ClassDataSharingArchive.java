@@ -0,0 +1,175 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.commons.lang.StringUtils;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the class data sharing archive of a SonarQube Runner installation and a JDK, in the "cds" folder of the runner home.
+ * The first analysis dumps the archive at exit, next ones map it. Archives are named after the JDK and the runner libraries,
+ * so that an upgrade of either creates a new archive, even in place.
+ * Older JVMs ignore the options, and a JVM which doesn't match the archive doesn't share classes.
+ *
+ * @since 2.3
+ */
+class ClassDataSharingArchive extends MasterToSlaveFileCallable<String> {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * An archive isn't created after this delay, the analysis creating it probably failed
+   */
+  private static final long STALE_LOCK_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  /**
+   * Archives of former runners or JDKs not used for this delay are deleted
+   */
+  private static final long UNUSED_ARCHIVE_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+  private static final String ARCHIVE_EXTENSION = ".jsa";
+
+  /**
+   * Files of a JDK which change with its version, up to Java 8 and after
+   */
+  private static final String[] JDK_IDENTITY_FILES = {"release", "lib/modules", "jre/lib/rt.jar", "lib/rt.jar"};
+
+  private final String javaHome;
+  private final String path;
+
+  /**
+   * @param javaHome JAVA_HOME of the analysis, or null to look for java in the PATH
+   * @param path PATH of the analysis
+   */
+  ClassDataSharingArchive(@CheckForNull String javaHome, @CheckForNull String path) {
+    this.javaHome = javaHome;
+    this.path = path;
+  }
+
+  /**
+   * @return JVM options creating or using the archive, or null if the archive is being created by another analysis
+   */
+  public String invoke(File home, VirtualChannel channel) throws IOException {
+    File dir = new File(home, "cds");
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      return null;
+    }
+    File jdkHome = getJdkHome();
+    if (jdkHome == null) {
+      return null;
+    }
+    File archive = new File(dir, getArchiveName(home, jdkHome));
+    if (archive.getPath().contains(" ")) {
+      // the runner script splits its options on spaces
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    if (archive.isFile()) {
+      // keeps track of archives still in use
+      archive.setLastModified(now);
+      return "-XX:+IgnoreUnrecognizedVMOptions -Xshare:auto -XX:SharedArchiveFile=" + archive.getPath();
+    }
+
+    File lock = new File(dir, archive.getName() + ".lock");
+    if (lock.exists() && now - lock.lastModified() > STALE_LOCK_MILLIS) {
+      lock.delete();
+    }
+    if (!lock.createNewFile()) {
+      return null;
+    }
+    deleteUnusedArchives(dir, now);
+    return "-XX:+IgnoreUnrecognizedVMOptions -XX:ArchiveClassesAtExit=" + archive.getPath();
+  }
+
+  /**
+   * @return home of the JDK running the analysis, or null if not found
+   */
+  @CheckForNull
+  private File getJdkHome() throws IOException {
+    if (StringUtils.isNotBlank(javaHome)) {
+      return new File(javaHome).getCanonicalFile();
+    }
+    if (path == null) {
+      return null;
+    }
+    String executable = File.separatorChar == '\\' ? "java.exe" : "java";
+    for (String dir : StringUtils.split(path, File.pathSeparatorChar)) {
+      File java = new File(dir, executable);
+      if (java.isFile()) {
+        // bin/java may be a link, e.g. through /etc/alternatives
+        return java.getCanonicalFile().getParentFile().getParentFile();
+      }
+    }
+    return null;
+  }
+
+  private static String getArchiveName(File home, File jdkHome) {
+    StringBuilder inputs = new StringBuilder(jdkHome.getPath());
+    for (String identityFile : JDK_IDENTITY_FILES) {
+      File file = new File(jdkHome, identityFile);
+      if (file.isFile()) {
+        inputs.append('\n').append(identityFile).append('\n').append(file.length()).append('\n').append(file.lastModified());
+      }
+    }
+    File[] libraries = new File(home, "lib").listFiles();
+    if (libraries != null) {
+      Arrays.sort(libraries);
+      for (File library : libraries) {
+        inputs.append('\n').append(library.getName()).append('\n').append(library.lastModified());
+      }
+    }
+    return Util.getDigestOf(inputs.toString()) + ARCHIVE_EXTENSION;
+  }
+
+  private static void deleteUnusedArchives(File dir, long now) {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.getName().endsWith(ARCHIVE_EXTENSION) && now - file.lastModified() > UNUSED_ARCHIVE_MILLIS) {
+        file.delete();
+        new File(dir, file.getName() + ".lock").delete();
+      }
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.maven.MavenModule;
+import hudson.maven.MavenModuleSet;
+import hudson.maven.MavenModuleSetBuild;
+import hudson.maven.ModuleName;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.commons.lang.StringUtils;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Derives SonarQube Runner properties from the modules Jenkins already parsed for a Maven job,
+ * so that the analysis doesn't need to bootstrap Maven again.
+ * Module folders follow the Maven conventions, since the module model doesn't record the actual source and output directories.
+ *
+ * @since 2.3
+ */
+final class MavenModuleProperties {
+
+  /**
+   * Analysis properties and their conventional folder, relative to the module base directory.
+   */
+  private static final String[][] CONVENTIONS = {
+    {"sonar.sources", "src/main/java"},
+    {"sonar.tests", "src/test/java"},
+    {"sonar.binaries", "target/classes"},
+    {"sonar.junit.reportsPath", "target/surefire-reports"}
+  };
+
+  private MavenModuleProperties() {
+    // Utility class
+  }
+
+  /**
+   * @param workspace workspace of the build, in which the module folders are looked up
+   */
+  static Properties of(MavenModuleSetBuild build, @CheckForNull FilePath workspace, String branch) throws IOException, InterruptedException {
+    if (workspace == null) {
+      throw new AbortException("Project workspace is null");
+    }
+    MavenModuleSet project = build.getProject();
+    MavenModule rootModule = project.getRootModule();
+    if (rootModule == null) {
+      throw new AbortException("Maven modules of " + project.getFullName() + " are unknown, the job needs to be built once without the SonarQube Runner");
+    }
+    List<MavenModule> modules = new ArrayList<MavenModule>();
+    List<String> candidates = new ArrayList<String>();
+    for (MavenModule module : project.getModules()) {
+      if (!module.isDisabled()) {
+        modules.add(module);
+        for (String[] convention : CONVENTIONS) {
+          candidates.add(getPath(module, convention[1]));
+        }
+      }
+    }
+    // Single round trip for all the folders
+    Set<String> existing = workspace.act(new ExistingPaths(candidates));
+
+    Properties properties = new Properties();
+    addProject(properties, "", rootModule, workspace);
+    properties.setProperty("sonar.projectVersion", rootModule.getVersion());
+    if (StringUtils.isNotBlank(branch)) {
+      properties.setProperty("sonar.branch", branch);
+    }
+    List<String> moduleIds = new ArrayList<String>();
+    for (MavenModule module : modules) {
+      Properties folders = new Properties();
+      for (String[] convention : CONVENTIONS) {
+        if (existing.contains(getPath(module, convention[1]))) {
+          folders.setProperty(convention[0], convention[1]);
+        }
+      }
+      if (!folders.containsKey("sonar.sources")) {
+        // aggregator, or a module out of the conventions
+        continue;
+      }
+      // the root module has no module prefix
+      String prefix = "";
+      if (module != rootModule) {
+        String moduleId = getModuleId(module, moduleIds);
+        moduleIds.add(moduleId);
+        prefix = moduleId + ".";
+        addProject(properties, prefix, module, workspace);
+      }
+      for (String key : folders.stringPropertyNames()) {
+        properties.setProperty(prefix + key, folders.getProperty(key));
+      }
+    }
+    if (!moduleIds.isEmpty()) {
+      properties.setProperty("sonar.modules", StringUtils.join(moduleIds, ','));
+    }
+    return properties;
+  }
+
+  /**
+   * Adds the "-Dkey=value" system properties of Maven options.
+   */
+  static void addSystemProperties(Properties properties, String mavenOptions) {
+    for (String option : Util.tokenize(StringUtils.defaultString(mavenOptions))) {
+      if (option.startsWith("-D") && option.length() > 2) {
+        String key = StringUtils.substringBefore(option.substring(2), "=");
+        String value = option.contains("=") ? StringUtils.substringAfter(option, "=") : "true";
+        properties.setProperty(key, value);
+      }
+    }
+  }
+
+  private static void addProject(Properties properties, String prefix, MavenModule module, FilePath workspace) {
+    ModuleName name = module.getModuleName();
+    properties.setProperty(prefix + "sonar.projectKey", name.groupId + ":" + name.artifactId);
+    properties.setProperty(prefix + "sonar.projectName", module.getDisplayName());
+    String relativePath = module.getRelativePath();
+    properties.setProperty(prefix + "sonar.projectBaseDir", StringUtils.isEmpty(relativePath) ? workspace.getRemote() : workspace.child(relativePath).getRemote());
+  }
+
+  /**
+   * @return artifactId usable as a property prefix, unique among the given ids
+   */
+  private static String getModuleId(MavenModule module, List<String> moduleIds) {
+    String id = module.getModuleName().artifactId.replaceAll("[^A-Za-z0-9_-]", "_");
+    String uniqueId = id;
+    for (int i = 2; moduleIds.contains(uniqueId); i++) {
+      uniqueId = id + "_" + i;
+    }
+    return uniqueId;
+  }
+
+  private static String getPath(MavenModule module, String folder) {
+    String relativePath = module.getRelativePath();
+    return StringUtils.isEmpty(relativePath) ? folder : relativePath + "/" + folder;
+  }
+
+  private static final class ExistingPaths extends MasterToSlaveFileCallable<Set<String>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> paths;
+
+    ExistingPaths(List<String> paths) {
+      this.paths = paths;
+    }
+
+    public Set<String> invoke(File workspace, VirtualChannel channel) {
+      Set<String> existing = new HashSet<String>();
+      for (String path : paths) {
+        if (new File(workspace, path).exists()) {
+          existing.add(path);
+        }
+      }
+      return existing;
+    }
+  }
+}
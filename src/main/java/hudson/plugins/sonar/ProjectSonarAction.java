@@ -36,7 +36,6 @@ package hudson.plugins.sonar;
 import hudson.PluginWrapper;
 import hudson.model.ProminentProjectAction;
 import hudson.model.AbstractProject;
-import hudson.plugins.sonar.utils.SonarUtils;
 import jenkins.model.Jenkins;
 
 /**
@@ -66,6 +65,6 @@ public final class ProjectSonarAction implements ProminentProjectAction {
 
   @Override
   public String getUrlName() {
-    return SonarUtils.getLastSonarUrl(project);
+    return SonarProjectRecord.getLastSonarUrl(project);
   }
 }
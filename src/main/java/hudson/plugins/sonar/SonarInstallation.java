@@ -112,12 +112,57 @@ public class SonarInstallation {
   private Secret databaseSecret;
   private Secret sonarSecret;
 
-  @DataBoundConstructor
+  /**
+   * @since 2.3
+   */
+  private int maxConcurrentAnalyses;
+
+  /**
+   * @since 2.3
+   */
+  private boolean reuseAnalyses;
+
+  /**
+   * @since 2.3
+   */
+  private int minAnalysisHeap;
+
+  /**
+   * @since 2.3
+   */
+  private int maxAnalysisHeap;
+
+  /**
+   * @deprecated in 2.3
+   */
+  @Deprecated
   public SonarInstallation(String name, boolean disabled,
     String serverUrl,
     String databaseUrl, String databaseLogin, String databasePassword,
     String mojoVersion, String additionalProperties, TriggersConfig triggers,
     String sonarLogin, String sonarPassword) {
+    this(name, disabled, serverUrl, databaseUrl, databaseLogin, databasePassword, mojoVersion, additionalProperties, triggers, sonarLogin, sonarPassword, 0, false);
+  }
+
+  /**
+   * @deprecated in 2.3
+   */
+  @Deprecated
+  public SonarInstallation(String name, boolean disabled,
+    String serverUrl,
+    String databaseUrl, String databaseLogin, String databasePassword,
+    String mojoVersion, String additionalProperties, TriggersConfig triggers,
+    String sonarLogin, String sonarPassword, int maxConcurrentAnalyses, boolean reuseAnalyses) {
+    this(name, disabled, serverUrl, databaseUrl, databaseLogin, databasePassword, mojoVersion, additionalProperties, triggers, sonarLogin, sonarPassword,
+      maxConcurrentAnalyses, reuseAnalyses, 0, 0);
+  }
+
+  @DataBoundConstructor
+  public SonarInstallation(String name, boolean disabled,
+    String serverUrl,
+    String databaseUrl, String databaseLogin, String databasePassword,
+    String mojoVersion, String additionalProperties, TriggersConfig triggers,
+    String sonarLogin, String sonarPassword, int maxConcurrentAnalyses, boolean reuseAnalyses, int minAnalysisHeap, int maxAnalysisHeap) {
     this.name = name;
     this.disabled = disabled;
     this.serverUrl = serverUrl;
@@ -129,6 +174,10 @@ public class SonarInstallation {
     this.triggers = triggers;
     this.sonarLogin = sonarLogin;
     setSonarPassword(sonarPassword);
+    this.maxConcurrentAnalyses = Math.max(0, maxConcurrentAnalyses);
+    this.reuseAnalyses = reuseAnalyses;
+    this.maxAnalysisHeap = Math.max(0, maxAnalysisHeap);
+    this.minAnalysisHeap = Math.min(Math.max(0, minAnalysisHeap), this.maxAnalysisHeap);
   }
 
   public String getName() {
@@ -208,6 +257,38 @@ public class SonarInstallation {
     sonarSecret = Secret.fromString(Util.fixEmptyAndTrim(sonarPassword));
   }
 
+  /**
+   * @return maximum number of analyses running at the same time against this installation, 0 for no limit
+   * @since 2.3
+   */
+  public int getMaxConcurrentAnalyses() {
+    return maxConcurrentAnalyses;
+  }
+
+  /**
+   * @return true if builds of an already analyzed revision with the same settings reuse the previous analysis
+   * @since 2.3
+   */
+  public boolean isReuseAnalyses() {
+    return reuseAnalyses;
+  }
+
+  /**
+   * @return minimum heap in MB given to analysis JVMs sized from previous analyses
+   * @since 2.3
+   */
+  public int getMinAnalysisHeap() {
+    return minAnalysisHeap;
+  }
+
+  /**
+   * @return maximum heap in MB given to analysis JVMs sized from previous analyses, 0 if their heap isn't sized by the plugin
+   * @since 2.3
+   */
+  public int getMaxAnalysisHeap() {
+    return maxAnalysisHeap;
+  }
+
   private Object readResolve() {
     // Perform password migration to Secret (SONARJNKNS-201)
     // Data will be persisted when SonarPublisher.DescriptorImpl is saved.
@@ -0,0 +1,277 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.Extension;
+import hudson.model.UnprotectedRootAction;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Analysis throughput and latency in the Prometheus text exposition format, at /sonar-metrics/.
+ * Reading requires the overall read permission, unless the system property
+ * <tt>hudson.plugins.sonar.SonarMetrics.unauthenticated</tt> is true.
+ * Recording only updates striped atomic counters, so concurrent analyses don't contend.
+ *
+ * @since 2.3
+ */
+@Extension
+public final class SonarMetrics implements UnprotectedRootAction {
+
+  static final boolean UNAUTHENTICATED = Boolean.getBoolean(SonarMetrics.class.getName() + ".unauthenticated");
+
+  static final String KIND_RUNNER = "runner";
+  static final String KIND_MAVEN = "maven";
+
+  private static final String STARTED = "sonar_analyses_started_total";
+  private static final String SUCCEEDED = "sonar_analyses_succeeded_total";
+  private static final String FAILED = "sonar_analyses_failed_total";
+  private static final String SKIPPED = "sonar_analyses_skipped_total";
+  private static final String LAUNCH = "sonar_launch_seconds";
+  private static final String DURATION = "sonar_analysis_duration_seconds";
+  private static final String QUEUE = "sonar_throttle_wait_seconds";
+  private static final String LOG_SCAN = "sonar_log_scan_seconds";
+
+  private static final String[][] HELP = {
+    {STARTED, "counter", "Analysis processes launched."},
+    {SUCCEEDED, "counter", "Analyses which succeeded."},
+    {FAILED, "counter", "Analyses which failed."},
+    {SKIPPED, "counter", "Analyses skipped, by reason."},
+    {LAUNCH, "histogram", "Time from the launch of the analysis process to its first output."},
+    {DURATION, "histogram", "Time from the first output of the analysis process to its end."},
+    {QUEUE, "histogram", "Time waiting for a free analysis slot of the SonarQube installation, analyses skipped afterwards included."},
+    {LOG_SCAN, "histogram", "Time searching the URL of the project dashboard in the analysis output."}
+  };
+
+  /**
+   * Upper bounds of the histogram buckets, in seconds
+   */
+  private static final double[] BUCKETS = {0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30, 60, 300, 600, 1800, 3600};
+
+  /**
+   * Metrics by name, then by labels
+   */
+  private static final ConcurrentMap<String, ConcurrentMap<String, Object>> METRICS = new ConcurrentHashMap<String, ConcurrentMap<String, Object>>();
+
+  static void analysisStarted(String installation, String kind) {
+    counter(STARTED, labels(installation, kind)).add(1);
+  }
+
+  /**
+   * Recorded once the analysis slot is acquired, since the analysis may still be skipped.
+   */
+  static void analysisQueued(String installation, String kind, long millis) {
+    histogram(QUEUE, labels(installation, kind)).observe(millis);
+  }
+
+  static void analysisSkipped(String installation, String reason) {
+    counter(SKIPPED, "installation=\"" + escape(installation) + "\",reason=\"" + reason + "\"").add(1);
+  }
+
+  static void analysisCompleted(String installation, String kind, AnalysisTimings timings, boolean success) {
+    String labels = labels(installation, kind);
+    counter(success ? SUCCEEDED : FAILED, labels).add(1);
+    histogram(LAUNCH, labels).observe(timings.getLaunch());
+    histogram(DURATION, labels).observe(timings.getAnalysis());
+    histogram(LOG_SCAN, labels).observe(timings.getUrlExtraction());
+  }
+
+  /**
+   * @param message skip message of {@link hudson.plugins.sonar.model.TriggersConfig}
+   * @return reason label of the skipped analysis
+   */
+  static String getSkipReason(String message) {
+    if (Messages.SonarPublisher_Superseded().equals(message)) {
+      return "superseded";
+    } else if (Messages.SonarPublisher_IgnoredChanges().equals(message)) {
+      return "ignored_changes";
+    } else if (Messages.Skipping_Sonar_analysis().equals(message)) {
+      return "trigger";
+    }
+    return "build_result";
+  }
+
+  private static String labels(String installation, String kind) {
+    return "installation=\"" + escape(installation) + "\",kind=\"" + kind + "\"";
+  }
+
+  private static String escape(String value) {
+    return String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static StripedCounter counter(String name, String labels) {
+    return (StripedCounter) metric(name, labels, false);
+  }
+
+  private static Histogram histogram(String name, String labels) {
+    return (Histogram) metric(name, labels, true);
+  }
+
+  private static Object metric(String name, String labels, boolean histogram) {
+    ConcurrentMap<String, Object> byLabels = METRICS.get(name);
+    if (byLabels == null) {
+      METRICS.putIfAbsent(name, new ConcurrentHashMap<String, Object>());
+      byLabels = METRICS.get(name);
+    }
+    Object metric = byLabels.get(labels);
+    if (metric == null) {
+      byLabels.putIfAbsent(labels, histogram ? new Histogram() : new StripedCounter());
+      metric = byLabels.get(labels);
+    }
+    return metric;
+  }
+
+  static void write(PrintWriter out) {
+    for (String[] help : HELP) {
+      Map<String, Object> byLabels = METRICS.get(help[0]);
+      if (byLabels == null) {
+        continue;
+      }
+      out.println("# HELP " + help[0] + " " + help[2]);
+      out.println("# TYPE " + help[0] + " " + help[1]);
+      SortedMap<String, Object> sorted = new ConcurrentSkipListMap<String, Object>(byLabels);
+      for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+        if (entry.getValue() instanceof Histogram) {
+          ((Histogram) entry.getValue()).write(out, help[0], entry.getKey());
+        } else {
+          out.println(help[0] + "{" + entry.getKey() + "} " + ((StripedCounter) entry.getValue()).get());
+        }
+      }
+    }
+  }
+
+  public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+    if (!UNAUTHENTICATED) {
+      Jenkins.getInstance().checkPermission(Jenkins.READ);
+    }
+    rsp.setContentType("text/plain; version=0.0.4; charset=utf-8");
+    PrintWriter out = rsp.getWriter();
+    write(out);
+    out.flush();
+  }
+
+  @Override
+  public String getIconFileName() {
+    return null;
+  }
+
+  @Override
+  public String getDisplayName() {
+    return "SonarQube metrics";
+  }
+
+  @Override
+  public String getUrlName() {
+    return "sonar-metrics";
+  }
+
+  /**
+   * Counter spread over cache line aligned cells picked by thread, summed on read.
+   */
+  static final class StripedCounter {
+
+    private static final int STRIPES = stripes();
+    /**
+     * Longs per cache line, so that threads updating different cells don't share lines
+     */
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    void add(long delta) {
+      cells.getAndAdd((int) (Thread.currentThread().getId() & (STRIPES - 1)) * PADDING, delta);
+    }
+
+    long get() {
+      long sum = 0;
+      for (int i = 0; i < STRIPES; i++) {
+        sum += cells.get(i * PADDING);
+      }
+      return sum;
+    }
+
+    /**
+     * @return power of two above twice the number of processors
+     */
+    private static int stripes() {
+      int stripes = 1;
+      while (stripes < 2 * Runtime.getRuntime().availableProcessors()) {
+        stripes <<= 1;
+      }
+      return stripes;
+    }
+  }
+
+  static final class Histogram {
+
+    private final StripedCounter[] buckets = new StripedCounter[BUCKETS.length + 1];
+    private final StripedCounter sumMillis = new StripedCounter();
+
+    Histogram() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new StripedCounter();
+      }
+    }
+
+    void observe(long millis) {
+      int i = 0;
+      while (i < BUCKETS.length && millis > BUCKETS[i] * 1000) {
+        i++;
+      }
+      buckets[i].add(1);
+      sumMillis.add(millis);
+    }
+
+    void write(PrintWriter out, String name, String labels) {
+      long cumulative = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        cumulative += buckets[i].get();
+        String bound = i < BUCKETS.length ? String.valueOf(BUCKETS[i]) : "+Inf";
+        out.println(name + "_bucket{" + labels + ",le=\"" + bound + "\"} " + cumulative);
+      }
+      out.println(name + "_sum{" + labels + "} " + sumMillis.get() / 1000.0);
+      out.println(name + "_count{" + labels + "} " + cumulative);
+    }
+  }
+}
@@ -0,0 +1,375 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.maven.MavenModuleSet;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.model.Project;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.plugins.sonar.utils.Logger;
+import hudson.plugins.sonar.utils.PathResolverOperator;
+import hudson.plugins.sonar.utils.SonarUtils;
+import jenkins.model.Jenkins;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+
+/**
+ * Small per-project record of the last SonarQube analyses, kept up to date when builds complete or are deleted,
+ * so that {@link ProjectSonarAction} doesn't have to load build records from disk on each page render.
+ * It is cached in memory and persisted in the root directory of the project.
+ *
+ * @since 2.3
+ */
+public final class SonarProjectRecord {
+
+  private static final String FILE_NAME = SonarProjectRecord.class.getName() + ".xml";
+
+  private static final ConcurrentMap<String, SonarProjectRecord> RECORDS = new ConcurrentHashMap<String, SonarProjectRecord>();
+
+  private static final int MAX_ANALYSES = 20;
+
+  /**
+   * Last build with a result better or equal to {@link Result#UNSTABLE}, see {@link AbstractProject#getLastSuccessfulBuild()}.
+   */
+  private AnalyzedBuild lastSuccessful;
+
+  /**
+   * Last build with {@link Result#UNSTABLE} result.
+   */
+  private AnalyzedBuild lastUnstable;
+
+  /**
+   * Last successful analyses by {@link AnalysisFingerprint}, oldest first.
+   */
+  private LinkedHashMap<String, AnalyzedBuild> analyses;
+
+  private transient XmlFile file;
+
+  /**
+   * Same lookup as {@link SonarUtils#getLastSonarUrl(AbstractProject)} but without going through the build history,
+   * except the first time the project is seen.
+   */
+  @CheckForNull
+  public static String getLastSonarUrl(AbstractProject<?, ?> project) {
+    SonarProjectRecord record = get(project);
+    if (record == null) {
+      return SonarUtils.getLastSonarUrl(project);
+    }
+    return record.getUrl();
+  }
+
+  /**
+   * @return build number and dashboard URL of a previous analysis with the given fingerprint, <tt>null</tt> if none
+   */
+  @CheckForNull
+  static AnalyzedBuild findAnalysis(AbstractProject<?, ?> project, String fingerprint) {
+    SonarProjectRecord record = get(project);
+    return record != null ? record.getAnalysis(fingerprint) : null;
+  }
+
+  /**
+   * Remembers a successful analysis, so that it can be reused by builds with the same fingerprint.
+   */
+  static void recordAnalysis(AbstractBuild<?, ?> build, String fingerprint, @CheckForNull String url) {
+    SonarProjectRecord record = get(build.getProject());
+    if (record != null && url != null) {
+      record.putAnalysis(fingerprint, new AnalyzedBuild(build.getNumber(), url));
+    }
+  }
+
+  /**
+   * Takes into account the dashboard URL of a build analyzed in the background, after the build completed.
+   */
+  static void recordAsyncAnalysis(AbstractBuild<?, ?> build) {
+    SonarProjectRecord record = get(build.getProject());
+    if (record != null) {
+      record.onCompleted(build);
+    }
+  }
+
+  /**
+   * @return record of the project, <tt>null</tt> if the project can't have one (i.e. it's not stored on disk)
+   */
+  @CheckForNull
+  static SonarProjectRecord get(AbstractProject<?, ?> project) {
+    String key = project.getFullName();
+    File rootDir = project.getRootDir();
+    if (key == null || rootDir == null) {
+      return null;
+    }
+    SonarProjectRecord record = RECORDS.get(key);
+    if (record == null) {
+      record = load(project, new XmlFile(Jenkins.XSTREAM, new File(rootDir, FILE_NAME)));
+      SonarProjectRecord previous = RECORDS.putIfAbsent(key, record);
+      if (previous != null) {
+        record = previous;
+      }
+    }
+    return record;
+  }
+
+  /**
+   * Same as {@link #get(AbstractProject)}, but doesn't create the record of a project which has none yet.
+   */
+  @CheckForNull
+  private static SonarProjectRecord getIfExists(AbstractProject<?, ?> project) {
+    String key = project.getFullName();
+    File rootDir = project.getRootDir();
+    if (key == null || rootDir == null) {
+      return null;
+    }
+    if (RECORDS.containsKey(key) || new File(rootDir, FILE_NAME).exists()) {
+      return get(project);
+    }
+    return null;
+  }
+
+  /**
+   * Builds of projects without analysis, such as the module builds of Maven projects, don't need a record.
+   */
+  private static boolean isAnalyzed(AbstractBuild<?, ?> build) {
+    if (build.getAction(BuildSonarAction.class) != null) {
+      return true;
+    }
+    AbstractProject<?, ?> project = build.getProject();
+    if (project.getPublishersList().get(SonarPublisher.class) != null) {
+      return true;
+    }
+    if (project instanceof Project) {
+      return ((Project<?, ?>) project).getBuildersList().get(SonarRunnerBuilder.class) != null;
+    }
+    if (project instanceof MavenModuleSet) {
+      MavenModuleSet mavenProject = (MavenModuleSet) project;
+      return mavenProject.getPrebuilders().get(SonarRunnerBuilder.class) != null || mavenProject.getPostbuilders().get(SonarRunnerBuilder.class) != null;
+    }
+    return false;
+  }
+
+  private static SonarProjectRecord load(AbstractProject<?, ?> project, XmlFile file) {
+    SonarProjectRecord record = null;
+    if (file.exists()) {
+      try {
+        record = (SonarProjectRecord) file.read();
+      } catch (IOException e) {
+        Logger.LOG.log(Level.WARNING, "Unable to read " + file, e);
+      }
+    }
+    if (record == null) {
+      // First time this project is seen: initialize from build history
+      record = new SonarProjectRecord();
+      record.lastSuccessful = AnalyzedBuild.of(project.getLastSuccessfulBuild());
+      record.lastUnstable = AnalyzedBuild.of(project.getLastUnstableBuild());
+      record.file = file;
+      record.save();
+    } else {
+      record.file = file;
+    }
+    return record;
+  }
+
+  @CheckForNull
+  public synchronized String getUrl() {
+    if (lastSuccessful != null && lastSuccessful.url != null) {
+      return lastSuccessful.url;
+    }
+    return lastUnstable != null ? lastUnstable.url : null;
+  }
+
+  synchronized void onCompleted(AbstractBuild<?, ?> build) {
+    Result result = build.getResult();
+    if (result == null || result.isWorseThan(Result.UNSTABLE)) {
+      return;
+    }
+    AnalyzedBuild analyzed = AnalyzedBuild.of(build);
+    if (lastSuccessful == null || lastSuccessful.number <= build.getNumber()) {
+      lastSuccessful = analyzed;
+    }
+    if (result == Result.UNSTABLE && (lastUnstable == null || lastUnstable.number <= build.getNumber())) {
+      lastUnstable = analyzed;
+    }
+    save();
+  }
+
+  @CheckForNull
+  synchronized AnalyzedBuild getAnalysis(String fingerprint) {
+    return analyses != null ? analyses.get(fingerprint) : null;
+  }
+
+  synchronized void putAnalysis(String fingerprint, AnalyzedBuild analyzed) {
+    if (analyses == null) {
+      analyses = new LinkedHashMap<String, AnalyzedBuild>();
+    }
+    analyses.remove(fingerprint);
+    analyses.put(fingerprint, analyzed);
+    Iterator<String> oldest = analyses.keySet().iterator();
+    while (analyses.size() > MAX_ANALYSES) {
+      oldest.next();
+      oldest.remove();
+    }
+    save();
+  }
+
+  /**
+   * @return true if analyses of the given run were forgotten
+   */
+  synchronized boolean forgetAnalyses(Run<?, ?> run) {
+    if (analyses == null) {
+      return false;
+    }
+    boolean removed = false;
+    for (Iterator<AnalyzedBuild> it = analyses.values().iterator(); it.hasNext();) {
+      if (it.next().number == run.getNumber()) {
+        it.remove();
+        removed = true;
+      }
+    }
+    return removed;
+  }
+
+  synchronized boolean references(Run<?, ?> run) {
+    return (lastSuccessful != null && lastSuccessful.number == run.getNumber())
+      || (lastUnstable != null && lastUnstable.number == run.getNumber());
+  }
+
+  private synchronized void save() {
+    try {
+      file.write(this);
+    } catch (IOException e) {
+      Logger.LOG.log(Level.WARNING, "Unable to save " + file, e);
+    }
+  }
+
+  private void delete() {
+    if (!file.getFile().delete() && file.exists()) {
+      Logger.LOG.warning("Unable to delete " + file);
+    }
+  }
+
+  static void invalidate(String key) {
+    RECORDS.remove(key);
+  }
+
+  /**
+   * Build number and URL of the dashboard, if any.
+   */
+  static final class AnalyzedBuild {
+    private final int number;
+    private final String url;
+
+    private AnalyzedBuild(int number, String url) {
+      this.number = number;
+      this.url = url;
+    }
+
+    int getNumber() {
+      return number;
+    }
+
+    String getUrl() {
+      return url;
+    }
+
+    @CheckForNull
+    static AnalyzedBuild of(@CheckForNull Run<?, ?> run) {
+      if (run == null) {
+        return null;
+      }
+      BuildSonarAction action = run.getAction(BuildSonarAction.class);
+      return new AnalyzedBuild(run.getNumber(), action != null ? action.getUrlName() : null);
+    }
+  }
+
+  @Extension
+  public static final class RunListenerImpl extends RunListener<AbstractBuild> {
+
+    @Override
+    public void onCompleted(AbstractBuild build, TaskListener listener) {
+      if (!isAnalyzed(build)) {
+        return;
+      }
+      SonarProjectRecord record = get(build.getProject());
+      if (record != null) {
+        record.onCompleted(build);
+      }
+    }
+
+    @Override
+    public void onDeleted(AbstractBuild build) {
+      // records not loaded yet may reference the build as well, but there is no point in creating one to delete it
+      SonarProjectRecord record = getIfExists(build.getProject());
+      if (record != null && record.references(build)) {
+        // will be initialized again from build history on next access
+        invalidate(build.getProject().getFullName());
+        record.delete();
+      } else if (record != null && record.forgetAnalyses(build)) {
+        record.save();
+      }
+    }
+  }
+
+  @Extension
+  public static final class ItemListenerImpl extends ItemListener {
+
+    @Override
+    public void onRenamed(Item item, String oldName, String newName) {
+      if (item instanceof AbstractProject) {
+        String fullName = item.getFullName();
+        String oldFullName = fullName.substring(0, fullName.length() - newName.length()) + oldName;
+        invalidate(oldFullName);
+        PathResolverOperator.invalidate(oldFullName);
+      }
+    }
+
+    @Override
+    public void onDeleted(Item item) {
+      invalidate(item.getFullName());
+      PathResolverOperator.invalidate(item.getFullName());
+    }
+  }
+}
@@ -36,16 +36,18 @@ package hudson.plugins.sonar;
 import com.google.common.annotations.VisibleForTesting;
 import hudson.*;
 import hudson.maven.MavenModuleSet;
+import hudson.maven.MavenModuleSetBuild;
 import hudson.model.Action;
 import hudson.model.BuildListener;
 import hudson.model.Result;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.JDK;
+import hudson.model.StreamBuildListener;
 import hudson.plugins.sonar.model.TriggersConfig;
 import hudson.plugins.sonar.utils.Logger;
 import hudson.plugins.sonar.utils.SonarMaven;
-import hudson.plugins.sonar.utils.SonarUtils;
+import hudson.plugins.sonar.utils.SonarUrlCaptureStream;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.BuildStepMonitor;
 import hudson.tasks.Notifier;
@@ -64,8 +66,16 @@ import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
 
 /**
  * Old fields should be left so that old config data can be read in, but
@@ -74,6 +84,11 @@ import java.util.List;
  */
 public class SonarPublisher extends Notifier {
 
+  /**
+   * Name of the log of asynchronous analyses in the build directory.
+   */
+  static final String ASYNC_ANALYSIS_LOG = "sonar-analysis.log";
+
   /**
    * Identifies {@link JDK} to be used.
    * Null if no explicit configuration is required.
@@ -156,12 +171,75 @@ public class SonarPublisher extends Notifier {
    */
   private final boolean usePrivateRepository;
 
-  @DataBoundConstructor
+  /**
+   * If true, the analysis runs in the background and the build doesn't wait for it.
+   *
+   * @since 2.3
+   */
+  private final boolean asyncAnalysis;
+
+  /**
+   * If true, Maven jobs are analyzed by the SonarQube Runner with properties derived from their modules.
+   *
+   * @since 2.3
+   */
+  private final boolean useSonarRunner;
+
+  /**
+   * If true, the JIT compilation of the Maven JVM of the analysis is limited so that it starts faster.
+   *
+   * @since 2.3
+   */
+  private final boolean quickStartJvm;
+
+  /**
+   * @deprecated in 2.3
+   */
+  @Deprecated
   public SonarPublisher(String installationName,
     String branch,
     TriggersConfig triggers,
     String jobAdditionalProperties, String mavenOpts,
     String mavenInstallationName, String rootPom, String jdk, SettingsProvider settings, GlobalSettingsProvider globalSettings, boolean usePrivateRepository) {
+    this(installationName, branch, triggers, jobAdditionalProperties, mavenOpts, mavenInstallationName, rootPom, jdk, settings, globalSettings,
+      usePrivateRepository, false);
+  }
+
+  /**
+   * @deprecated in 2.3
+   */
+  @Deprecated
+  public SonarPublisher(String installationName,
+    String branch,
+    TriggersConfig triggers,
+    String jobAdditionalProperties, String mavenOpts,
+    String mavenInstallationName, String rootPom, String jdk, SettingsProvider settings, GlobalSettingsProvider globalSettings, boolean usePrivateRepository,
+    boolean asyncAnalysis) {
+    this(installationName, branch, triggers, jobAdditionalProperties, mavenOpts, mavenInstallationName, rootPom, jdk, settings, globalSettings,
+      usePrivateRepository, asyncAnalysis, false);
+  }
+
+  /**
+   * @deprecated in 2.3
+   */
+  @Deprecated
+  public SonarPublisher(String installationName,
+    String branch,
+    TriggersConfig triggers,
+    String jobAdditionalProperties, String mavenOpts,
+    String mavenInstallationName, String rootPom, String jdk, SettingsProvider settings, GlobalSettingsProvider globalSettings, boolean usePrivateRepository,
+    boolean asyncAnalysis, boolean useSonarRunner) {
+    this(installationName, branch, triggers, jobAdditionalProperties, mavenOpts, mavenInstallationName, rootPom, jdk, settings, globalSettings,
+      usePrivateRepository, asyncAnalysis, useSonarRunner, false);
+  }
+
+  @DataBoundConstructor
+  public SonarPublisher(String installationName,
+    String branch,
+    TriggersConfig triggers,
+    String jobAdditionalProperties, String mavenOpts,
+    String mavenInstallationName, String rootPom, String jdk, SettingsProvider settings, GlobalSettingsProvider globalSettings, boolean usePrivateRepository,
+    boolean asyncAnalysis, boolean useSonarRunner, boolean quickStartJvm) {
     this.installationName = installationName;
     this.branch = branch;
     this.jdk = StringUtils.trimToNull(jdk);
@@ -176,6 +254,9 @@ public class SonarPublisher extends Notifier {
     this.settings = settings != null ? settings : new DefaultSettingsProvider();
     this.globalSettings = globalSettings != null ? globalSettings : new DefaultGlobalSettingsProvider();
     this.usePrivateRepository = usePrivateRepository;
+    this.asyncAnalysis = asyncAnalysis;
+    this.useSonarRunner = useSonarRunner;
+    this.quickStartJvm = quickStartJvm;
   }
 
   // compatibility with earlier plugins
@@ -287,6 +368,30 @@ public class SonarPublisher extends Notifier {
     return StringUtils.trimToEmpty(rootPom);
   }
 
+  /**
+   * @return true if the build doesn't wait for the analysis
+   * @since 2.3
+   */
+  public boolean isAsyncAnalysis() {
+    return asyncAnalysis;
+  }
+
+  /**
+   * @return true if Maven jobs are analyzed by the SonarQube Runner rather than by a new Maven process
+   * @since 2.3
+   */
+  public boolean isUseSonarRunner() {
+    return useSonarRunner;
+  }
+
+  /**
+   * @return true if the Maven JVM of the analysis is tuned for startup rather than peak performance
+   * @since 2.3
+   */
+  public boolean isQuickStartJvm() {
+    return quickStartJvm;
+  }
+
   public static boolean isMavenBuilder(AbstractProject<?, ?> currentProject) {
     return currentProject instanceof MavenModuleSet;
   }
@@ -295,20 +400,44 @@ public class SonarPublisher extends Notifier {
     return SonarInstallation.get(getInstallationName());
   }
 
+  private TriggersConfig getEffectiveTriggers(SonarInstallation sonarInstallation) {
+    return isUseGlobalTriggers() ? sonarInstallation.getTriggers() : getTriggers();
+  }
+
   private boolean isSkip(AbstractBuild<?, ?> build, BuildListener listener, SonarInstallation sonarInstallation) throws IOException, InterruptedException {
-    String skipLaunchMsg;
-    if (isUseGlobalTriggers()) {
-      skipLaunchMsg = sonarInstallation.getTriggers().isSkipSonar(build, listener);
-    } else {
-      skipLaunchMsg = getTriggers().isSkipSonar(build, listener);
+    TriggersConfig effectiveTriggers = getEffectiveTriggers(sonarInstallation);
+    String skipLaunchMsg = effectiveTriggers.isSkipSonar(build, listener);
+    if (skipLaunchMsg == null && effectiveTriggers.isSkipIgnoredChanges()) {
+      skipLaunchMsg = effectiveTriggers.isSkipChanges(build, build.getWorkspace(), getAnalyzedPaths(build, listener, sonarInstallation));
     }
     if (skipLaunchMsg != null) {
       listener.getLogger().println(skipLaunchMsg);
+      SonarMetrics.analysisSkipped(sonarInstallation.getName(), SonarMetrics.getSkipReason(skipLaunchMsg));
       return true;
     }
     return false;
   }
 
+  /**
+   * @return values of sonar.sources and sonar.tests given in the additional properties
+   */
+  private List<String> getAnalyzedPaths(AbstractBuild<?, ?> build, BuildListener listener, SonarInstallation sonarInstallation)
+    throws IOException, InterruptedException {
+    String properties = StringUtils.defaultString(sonarInstallation.getAdditionalProperties()) + " "
+      + StringUtils.defaultString(build.getEnvironment(listener).expand(getJobAdditionalProperties()));
+    List<String> analyzedPaths = new ArrayList<String>();
+    for (String property : Util.tokenize(properties)) {
+      for (String key : new String[] {"-Dsonar.sources=", "-Dsonar.tests="}) {
+        if (property.startsWith(key)) {
+          for (String path : Util.tokenize(property.substring(key.length()), ",")) {
+            analyzedPaths.add(path.trim());
+          }
+        }
+      }
+    }
+    return analyzedPaths;
+  }
+
   @Override
   public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws IOException, InterruptedException {
     if (!SonarRunnerBuilder.isSonarInstallationValid(getInstallationName(), listener)) {
@@ -320,18 +449,169 @@ public class SonarPublisher extends Notifier {
       return true;
     }
 
-    boolean sonarSuccess = executeSonar(build, launcher, listener, sonarInstallation);
+    String fingerprint = getFingerprint(build, listener, sonarInstallation);
+    if (isAsyncAnalysis() && performAsync(build, launcher, listener, sonarInstallation, fingerprint)) {
+      return true;
+    }
+    boolean sonarSuccess = analyze(build, launcher, listener, sonarInstallation, fingerprint);
     if (!sonarSuccess) {
       // returning false has no effect on the global build status so need to do it manually
       build.setResult(Result.FAILURE);
-    } else {
-      String url = SonarUtils.extractSonarProjectURLFromLogs(build);
-      build.addAction(new BuildSonarAction(url));
     }
     listener.getLogger().println("SonarQube analysis completed: " + build.getResult());
     return sonarSuccess;
   }
 
+  /**
+   * Queues the analysis as a task of its own with its own log. The build result can't reflect the outcome of the analysis,
+   * only the {@link BuildSonarAction} added to the build once it is over holds the URL of a successful analysis.
+   *
+   * @return false if the analysis could not be queued
+   */
+  private boolean performAsync(final AbstractBuild<?, ?> build, final Launcher launcher, BuildListener listener, final SonarInstallation sonarInstallation,
+    final String fingerprint) {
+    final File logFile = new File(build.getRootDir(), ASYNC_ANALYSIS_LOG);
+    boolean queued = AsyncAnalysis.start(build, new Runnable() {
+      @Override
+      public void run() {
+        StreamBuildListener analysisListener;
+        try {
+          analysisListener = new StreamBuildListener(new FileOutputStream(logFile), build.getCharset());
+        } catch (IOException e) {
+          Logger.LOG.log(Level.WARNING, "Unable to write the SonarQube analysis log of " + build.getFullDisplayName(), e);
+          return;
+        }
+        try {
+          boolean sonarSuccess = analyze(build, launcher, analysisListener, sonarInstallation, fingerprint);
+          analysisListener.getLogger().println("SonarQube analysis completed: " + (sonarSuccess ? Result.SUCCESS : Result.FAILURE));
+          build.save();
+          // the record was updated when the build completed, before the dashboard URL was known
+          SonarProjectRecord.recordAsyncAnalysis(build);
+        } catch (IOException e) {
+          Logger.printFailureMessage(analysisListener);
+          Util.displayIOException(e, analysisListener);
+          e.printStackTrace(analysisListener.fatalError("SonarQube analysis failed"));
+        } catch (InterruptedException e) {
+          analysisListener.error("SonarQube analysis interrupted");
+        } catch (RuntimeException e) {
+          Logger.printFailureMessage(analysisListener);
+          e.printStackTrace(analysisListener.fatalError("SonarQube analysis failed"));
+        } finally {
+          analysisListener.closeQuietly();
+        }
+      }
+    });
+    if (queued) {
+      listener.getLogger().println(Messages.SonarPublisher_AsyncAnalysis(logFile.getName()));
+    }
+    return queued;
+  }
+
+  /**
+   * @return false if the analysis failed
+   */
+  private boolean analyze(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener, SonarInstallation sonarInstallation, String fingerprint)
+    throws IOException, InterruptedException {
+    if (isUseSonarRunner() && build instanceof MavenModuleSetBuild) {
+      // throttling, analysis reuse and the build badge are handled by the runner
+      return getModulesRunner((MavenModuleSetBuild) build, listener, sonarInstallation).perform(build, launcher, listener);
+    }
+    // no need to wait for an analysis slot when the revision is already analyzed
+    if (AnalysisFingerprint.reuseAnalysis(build, fingerprint, listener)) {
+      SonarMetrics.analysisSkipped(sonarInstallation.getName(), "reused");
+      return true;
+    }
+    SonarUrlCaptureStream urlCapture = new SonarUrlCaptureStream(listener.getLogger(), build.getCharset(), build.getProject().getFullName(),
+      sonarInstallation.getName());
+    BuildListener capturingListener = new StreamBuildListener(urlCapture, build.getCharset());
+    AnalysisTimings timings = new AnalysisTimings();
+    boolean sonarSuccess = false;
+    AnalysisThrottle throttle = AnalysisThrottle.of(sonarInstallation);
+    boolean acquired = false;
+    long launchStart = 0;
+    try {
+      long queueStart = System.currentTimeMillis();
+      throttle.acquire(sonarInstallation.getMaxConcurrentAnalyses(), listener);
+      acquired = true;
+      timings.addSince(AnalysisTimings.Phase.QUEUE, queueStart);
+      SonarMetrics.analysisQueued(sonarInstallation.getName(), SonarMetrics.KIND_MAVEN, timings.getQueue());
+      // newer builds may have been scheduled while waiting
+      String supersededMsg = getEffectiveTriggers(sonarInstallation).isSuperseded(build);
+      if (supersededMsg != null) {
+        listener.getLogger().println(supersededMsg);
+        SonarMetrics.analysisSkipped(sonarInstallation.getName(), SonarMetrics.getSkipReason(supersededMsg));
+        return true;
+      }
+      // the same revision may have been analyzed while waiting
+      if (AnalysisFingerprint.reuseAnalysis(build, fingerprint, listener)) {
+        SonarMetrics.analysisSkipped(sonarInstallation.getName(), "reused");
+        return true;
+      }
+      launchStart = System.currentTimeMillis();
+      SonarMetrics.analysisStarted(sonarInstallation.getName(), SonarMetrics.KIND_MAVEN);
+      sonarSuccess = executeSonar(build, launcher, capturingListener, sonarInstallation);
+    } finally {
+      if (acquired) {
+        throttle.release();
+      }
+      capturingListener.getLogger().flush();
+      urlCapture.close();
+      if (launchStart > 0) {
+        timings.addProcess(urlCapture, launchStart);
+        // failed if the analysis threw
+        SonarMetrics.analysisCompleted(sonarInstallation.getName(), SonarMetrics.KIND_MAVEN, timings, sonarSuccess);
+      }
+    }
+    listener.getLogger().println(Messages.AnalysisTimings_Summary(timings.getSummary()));
+    if (sonarSuccess) {
+      build.addAction(new BuildSonarAction(urlCapture.getUrl(), timings));
+      if (fingerprint != null) {
+        SonarProjectRecord.recordAnalysis(build, fingerprint, urlCapture.getUrl());
+      }
+    } else if (build.getAction(BuildSonarAction.class) == null) {
+      // the timings of a failed analysis help to tell a timeout from a broken setup
+      build.addAction(new BuildSonarAction(null, timings));
+    }
+    return sonarSuccess;
+  }
+
+  /**
+   * @return SonarQube Runner analyzing the modules Jenkins already parsed, without bootstrapping Maven again
+   */
+  private SonarRunnerBuilder getModulesRunner(MavenModuleSetBuild build, BuildListener listener, SonarInstallation sonarInstallation)
+    throws IOException, InterruptedException {
+    Properties properties = MavenModuleProperties.of(build, build.getWorkspace(), getBranch());
+    MavenModuleProperties.addSystemProperties(properties, sonarInstallation.getAdditionalProperties());
+    MavenModuleProperties.addSystemProperties(properties, build.getEnvironment(listener).expand(getJobAdditionalProperties()));
+    StringWriter writer = new StringWriter();
+    properties.store(writer, null);
+    // many modules don't fit the command line
+    return new SonarRunnerBuilder(getInstallationName(), null, null, writer.toString(), getMavenOpts(), getJdk(), null, true, null);
+  }
+
+  /**
+   * @return fingerprint of the analysis inputs, null if analyses aren't reused or the revision is unknown
+   */
+  @CheckForNull
+  private String getFingerprint(AbstractBuild<?, ?> build, BuildListener listener, SonarInstallation sonarInstallation)
+    throws IOException, InterruptedException {
+    if (!sonarInstallation.isReuseAnalyses()) {
+      return null;
+    }
+    EnvVars env = build.getEnvironment(listener);
+    FilePath workspace = build.getWorkspace();
+    return AnalysisFingerprint.of(env, sonarInstallation, workspace != null ? workspace.getRemote() : "", Arrays.asList(
+      "additionalProperties=" + sonarInstallation.getAdditionalProperties(),
+      "mojoVersion=" + sonarInstallation.getMojoVersion(),
+      "sonarLogin=" + sonarInstallation.getSonarLogin(),
+      "jobAdditionalProperties=" + env.expand(getJobAdditionalProperties()),
+      "branch=" + getBranch(),
+      "rootPom=" + getPomName(build, listener),
+      "mavenOpts=" + getMavenOpts(),
+      "mavenInstallation=" + getMavenInstallationName(),
+      "jdk=" + getJdk()));
+  }
+
   public MavenModuleSet getMavenProject(AbstractBuild<?, ?> build) {
     return (build.getProject() instanceof MavenModuleSet) ? (MavenModuleSet) build.getProject() : null;
   }
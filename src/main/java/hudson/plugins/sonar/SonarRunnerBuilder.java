@@ -37,19 +37,30 @@ import com.google.common.annotations.VisibleForTesting;
 import hudson.*;
 import hudson.model.*;
 import hudson.plugins.sonar.utils.ExtendedArgumentListBuilder;
+import hudson.plugins.sonar.utils.HeapSizing;
 import hudson.plugins.sonar.utils.Logger;
 import hudson.plugins.sonar.utils.PathResolverOperator;
-import hudson.plugins.sonar.utils.SonarUtils;
+import hudson.plugins.sonar.utils.PhaseEvent;
+import hudson.plugins.sonar.utils.SonarUrlCaptureStream;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
 import hudson.util.ArgumentListBuilder;
 import jenkins.model.Jenkins;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
 
+import javax.annotation.CheckForNull;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Properties;
 
@@ -90,6 +101,18 @@ public class SonarRunnerBuilder extends Builder {
    */
   private final String task;
 
+  /**
+   * Pass analysis properties through a generated properties file rather than the command line
+   * @since 2.3
+   */
+  private boolean usePropertiesFile;
+
+  /**
+   * Label of the nodes running the analysis, null to run it on the node of the build
+   * @since 2.3
+   */
+  private String analysisLabel;
+
   /**
    * @deprecated in 2.0
    */
@@ -114,8 +137,26 @@ public class SonarRunnerBuilder extends Builder {
     this(installationName, sonarRunnerName, project, properties, javaOpts, jdk, null);
   }
 
-  @DataBoundConstructor
+  /**
+   * @deprecated in 2.3
+   */
+  @Deprecated
   public SonarRunnerBuilder(String installationName, String sonarRunnerName, String project, String properties, String javaOpts, String jdk, String task) {
+    this(installationName, sonarRunnerName, project, properties, javaOpts, jdk, task, false);
+  }
+
+  /**
+   * @deprecated in 2.3
+   */
+  @Deprecated
+  public SonarRunnerBuilder(String installationName, String sonarRunnerName, String project, String properties, String javaOpts, String jdk, String task,
+    boolean usePropertiesFile) {
+    this(installationName, sonarRunnerName, project, properties, javaOpts, jdk, task, usePropertiesFile, null);
+  }
+
+  @DataBoundConstructor
+  public SonarRunnerBuilder(String installationName, String sonarRunnerName, String project, String properties, String javaOpts, String jdk, String task,
+    boolean usePropertiesFile, String analysisLabel) {
     this.installationName = installationName;
     this.sonarRunnerName = sonarRunnerName;
     this.javaOpts = javaOpts;
@@ -123,6 +164,8 @@ public class SonarRunnerBuilder extends Builder {
     this.properties = properties;
     this.jdk = jdk;
     this.task = task;
+    this.usePropertiesFile = usePropertiesFile;
+    this.analysisLabel = StringUtils.trimToNull(analysisLabel);
   }
 
   /**
@@ -191,6 +234,17 @@ public class SonarRunnerBuilder extends Builder {
     return task;
   }
 
+  public boolean isUsePropertiesFile() {
+    return usePropertiesFile;
+  }
+
+  /**
+   * @return label of the nodes running the analysis, null to run it on the node of the build
+   */
+  public String getAnalysisLabel() {
+    return analysisLabel;
+  }
+
   @Override
   public DescriptorImpl getDescriptor() {
     return (DescriptorImpl) super.getDescriptor();
@@ -215,51 +269,258 @@ public class SonarRunnerBuilder extends Builder {
       return false;
     }
 
-    ArgumentListBuilder args = new ArgumentListBuilder();
+    FilePath workspace = build.getWorkspace();
+    if (workspace == null) {
+      Logger.printFailureMessage(listener);
+      listener.fatalError("Project workspace is null");
+      return false;
+    }
 
     EnvVars env = build.getEnvironment(listener);
     env.overrideAll(build.getBuildVariables());
 
+    AnalysisSnapshot snapshot = null;
+    if (getAnalysisLabel() != null) {
+      snapshot = AnalysisSnapshot.reserve(build, env.expand(getAnalysisLabel()));
+      if (snapshot == null) {
+        Logger.printFailureMessage(listener);
+        listener.fatalError(Messages.SonarRunner_NoAnalysisNode(env.expand(getAnalysisLabel())));
+        return false;
+      }
+    }
+    try {
+      return analyze(build, launcher, listener, workspace, env, snapshot);
+    } finally {
+      if (snapshot != null) {
+        snapshot.release();
+      }
+    }
+  }
+
+  private boolean analyze(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener, FilePath workspace, EnvVars env,
+    @CheckForNull AnalysisSnapshot snapshot) throws IOException, InterruptedException {
+    ArgumentListBuilder args = new ArgumentListBuilder();
+
+    Computer computer = Computer.currentComputer();
+    // analyses of post build actions may run out of the executor
+    Node node = computer != null ? computer.getNode() : build.getBuiltOn();
+    Launcher analysisLauncher = launcher;
+    EnvVars analysisEnv = env;
+    if (snapshot != null) {
+      node = snapshot.getNode();
+      analysisLauncher = node.createLauncher(listener);
+      // the environment of the build node doesn't apply
+      analysisEnv = new EnvVars();
+    }
+    if (node == null) {
+      Logger.printFailureMessage(listener);
+      listener.fatalError(Messages.SonarRunner_NodeRemoved(build.getBuiltOnStr()));
+      return false;
+    }
+
     SonarRunnerInstallation sri = getSonarRunnerInstallation();
+    String exe = null;
+    if (sri != null) {
+      sri = sri.forNode(node, listener);
+      sri = sri.forEnvironment(env);
+      exe = sri.getCachedExecutable(node);
+    }
+    AnalysisTimings timings = new AnalysisTimings();
+    long preflightStart = System.currentTimeMillis();
+    // Single round trip for all the checks on the node
+    SonarRunnerPreflight.Facts preflight = workspace.act(new SonarRunnerPreflight(exe == null && snapshot == null ? sri : null,
+      getProjectSettingsCandidates(build, env), build.getProject().getFullName(), getInstallationName()));
+    timings.addSince(AnalysisTimings.Phase.PREFLIGHT, preflightStart);
+
     if (sri == null) {
-      args.add(launcher.isUnix() ? "sonar-runner" : "sonar-runner.bat");
+      args.add(analysisLauncher.isUnix() ? "sonar-runner" : "sonar-runner.bat");
     } else {
-      sri = sri.forNode(Computer.currentComputer().getNode(), listener);
-      sri = sri.forEnvironment(env);
-      String exe = sri.getExecutable(launcher);
+      if (exe == null) {
+        if (snapshot == null) {
+          exe = preflight.getExecutable();
+        } else {
+          preflightStart = System.currentTimeMillis();
+          exe = snapshot.findExecutable(sri);
+          timings.addSince(AnalysisTimings.Phase.PREFLIGHT, preflightStart);
+        }
+        if (exe != null) {
+          sri.cacheExecutable(node, exe);
+        }
+      }
       if (exe == null) {
         Logger.printFailureMessage(listener);
         listener.fatalError(Messages.SonarRunner_ExecutableNotFound(sri.getName()));
         return false;
       }
       args.add(exe);
-      env.put("SONAR_RUNNER_HOME", sri.getHome());
+      analysisEnv.put("SONAR_RUNNER_HOME", sri.getHome());
     }
     addTaskArgument(args);
     args.add("-e");
-    ExtendedArgumentListBuilder argsBuilder = new ExtendedArgumentListBuilder(args, launcher.isUnix());
-    if (!populateConfiguration(argsBuilder, build, listener, env, getSonarInstallation())) {
+    // the snapshot relocates the paths of the properties file
+    Properties analysisProperties = isUsePropertiesFile() || snapshot != null ? new Properties() : null;
+    ExtendedArgumentListBuilder argsBuilder = new ExtendedArgumentListBuilder(args, analysisLauncher.isUnix(), analysisProperties);
+    SonarInstallation sonarInstallation = getSonarInstallation();
+    long argumentsStart = System.currentTimeMillis();
+    PhaseEvent argumentsEvent = PhaseEvent.begin(PhaseEvent.ARGUMENTS, build.getProject().getFullName(), getInstallationName());
+    if (!populateConfiguration(argsBuilder, build, listener, env, sonarInstallation, preflight, timings)) {
       return false;
     }
-
-    // Java
-    computeJdkToUse(build, listener, env);
-
-    // Java options
-    env.put("SONAR_RUNNER_OPTS", getJavaOpts());
+    argumentsEvent.commit(null, args.toList().size() + (analysisProperties != null ? analysisProperties.size() : 0));
+    timings.add(AnalysisTimings.Phase.ARGUMENTS, System.currentTimeMillis() - argumentsStart - timings.get(AnalysisTimings.Phase.PATH_RESOLUTION));
+    String fingerprint = getFingerprint(env, sonarInstallation, workspace, args, analysisProperties, preflight);
+    // no need to wait for an analysis slot nor to copy a snapshot when the revision is already analyzed
+    if (AnalysisFingerprint.reuseAnalysis(build, fingerprint, listener)) {
+      SonarMetrics.analysisSkipped(sonarInstallation.getName(), "reused");
+      return true;
+    }
+    FilePath propertiesFile = null;
+    FilePath moduleRoot = build.getModuleRoot();
+    HeapSizing heapSizing = null;
+    AnalysisThrottle throttle = AnalysisThrottle.of(sonarInstallation);
+    boolean acquired = false;
 
     long startTime = System.currentTimeMillis();
-    int r;
+    int r = -1;
+    boolean launched = false;
+    // the properties file holds the credentials, it and the snapshot must not outlive an aborted build
     try {
-      r = executeSonarRunner(build, launcher, listener, args, env);
-    } catch (IOException e) {
-      handleErrors(build, listener, sri, startTime, e);
-      r = -1;
+      if (snapshot != null) {
+        Properties relocated = snapshot.copy(mergeProjectSettings(workspace, analysisProperties), listener);
+        propertiesFile = storeProperties(relocated, snapshot.getTarget());
+        moduleRoot = snapshot.getModuleRoot();
+      } else if (analysisProperties != null) {
+        propertiesFile = writePropertiesFile(build, analysisProperties);
+      }
+      if (propertiesFile != null) {
+        new ExtendedArgumentListBuilder(args, analysisLauncher.isUnix()).append("project.settings", propertiesFile.getRemote());
+      }
+
+      // Java
+      computeJdkToUse(build, listener, analysisEnv, node);
+
+      try {
+        long queueStart = System.currentTimeMillis();
+        throttle.acquire(sonarInstallation.getMaxConcurrentAnalyses(), listener);
+        acquired = true;
+        timings.addSince(AnalysisTimings.Phase.QUEUE, queueStart);
+        SonarMetrics.analysisQueued(sonarInstallation.getName(), SonarMetrics.KIND_RUNNER, timings.getQueue());
+        // the same revision may have been analyzed while waiting
+        if (AnalysisFingerprint.reuseAnalysis(build, fingerprint, listener)) {
+          SonarMetrics.analysisSkipped(sonarInstallation.getName(), "reused");
+          return true;
+        }
+
+        // Java options
+        String classDataSharingOptions = sri != null ? sri.getClassDataSharingOptions(node, analysisEnv) : null;
+        String jvmOptions = getJavaOpts();
+        heapSizing = HeapSizing.of(sonarInstallation, build);
+        if (heapSizing != null) {
+          jvmOptions = heapSizing.apply(jvmOptions, snapshot != null ? snapshot.getTarget() : workspace, listener);
+        }
+        analysisEnv.put("SONAR_RUNNER_OPTS", StringUtils.trim(StringUtils.defaultString(classDataSharingOptions) + " " + StringUtils.defaultString(jvmOptions)));
+
+        startTime = System.currentTimeMillis();
+        launched = true;
+        SonarMetrics.analysisStarted(sonarInstallation.getName(), SonarMetrics.KIND_RUNNER);
+        r = executeSonarRunner(build, analysisLauncher, listener, args, analysisEnv, moduleRoot, timings);
+      } catch (IOException e) {
+        // the executable may have been removed
+        SonarRunnerInstallation.invalidateExecutables(node.getNodeName());
+        handleErrors(build, listener, sri, startTime, e, timings);
+      }
+    } finally {
+      if (acquired) {
+        throttle.release();
+      }
+      if (heapSizing != null) {
+        heapSizing.record(r == 0, listener);
+      }
+      if (launched) {
+        // failed if the analysis threw or was aborted
+        SonarMetrics.analysisCompleted(sonarInstallation.getName(), SonarMetrics.KIND_RUNNER, timings, r == 0);
+      }
+      if (snapshot != null) {
+        snapshot.delete();
+      } else if (propertiesFile != null) {
+        propertiesFile.delete();
+      }
+    }
+    listener.getLogger().println(Messages.AnalysisTimings_Summary(timings.getSummary()));
+    BuildSonarAction sonarAction = build.getAction(BuildSonarAction.class);
+    if (r == 0 && fingerprint != null && sonarAction != null) {
+      SonarProjectRecord.recordAnalysis(build, fingerprint, sonarAction.getUrlName());
     }
     return r == 0;
   }
 
-  private void handleErrors(AbstractBuild<?, ?> build, BuildListener listener, SonarRunnerInstallation sri, long startTime, IOException e) {
+  /**
+   * @return fingerprint of the analysis inputs, null if analyses aren't reused or the revision is unknown
+   */
+  @CheckForNull
+  private String getFingerprint(EnvVars env, SonarInstallation sonarInstallation, FilePath workspace, ArgumentListBuilder args,
+    @CheckForNull Properties analysisProperties, SonarRunnerPreflight.Facts preflight) throws IOException, InterruptedException {
+    if (!sonarInstallation.isReuseAnalyses()) {
+      return null;
+    }
+    List<String> settings = new ArrayList<String>();
+    // first argument is the node specific path of the executable
+    settings.addAll(args.toList().subList(1, args.toList().size()));
+    if (analysisProperties != null) {
+      for (Entry<Object, Object> entry : analysisProperties.entrySet()) {
+        settings.add(entry.getKey() + "=" + entry.getValue());
+      }
+    }
+    settings.add("javaOpts=" + getJavaOpts());
+    settings.add("jdk=" + getJdk());
+    if (StringUtils.isNotBlank(getProject()) && preflight.getProjectSettings() != null) {
+      settings.add(AnalysisFingerprint.contentOf("project.settings", new FilePath(workspace, preflight.getProjectSettings())));
+    }
+    return AnalysisFingerprint.of(env, sonarInstallation, workspace.getRemote(), settings);
+  }
+
+  /**
+   * Writes the analysis properties in a temporary file of the workspace, merged over the ones of the project settings file if any,
+   * since SonarQube Runner loads a single settings file.
+   */
+  @VisibleForTesting
+  FilePath writePropertiesFile(AbstractBuild<?, ?> build, Properties analysisProperties) throws IOException, InterruptedException {
+    FilePath workspace = build.getWorkspace();
+    if (workspace == null) {
+      throw new AbortException("Project workspace is null");
+    }
+    return storeProperties(mergeProjectSettings(workspace, analysisProperties), workspace);
+  }
+
+  private static Properties mergeProjectSettings(FilePath workspace, Properties analysisProperties) throws IOException, InterruptedException {
+    Properties merged = new Properties();
+    String projectSettings = (String) analysisProperties.remove("project.settings");
+    if (projectSettings != null) {
+      InputStream in = new FilePath(workspace, projectSettings).read();
+      try {
+        merged.load(in);
+      } finally {
+        IOUtils.closeQuietly(in);
+      }
+    }
+    merged.putAll(analysisProperties);
+    return merged;
+  }
+
+  private static FilePath storeProperties(Properties properties, FilePath dir) throws IOException, InterruptedException {
+    dir.mkdirs();
+    FilePath propertiesFile = dir.createTempFile("sonar-analysis", ".properties");
+    OutputStream out = propertiesFile.write();
+    try {
+      properties.store(out, "Generated by Jenkins");
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+    return propertiesFile;
+  }
+
+  private void handleErrors(AbstractBuild<?, ?> build, BuildListener listener, SonarRunnerInstallation sri, long startTime, IOException e,
+    AnalysisTimings timings) {
     Logger.printFailureMessage(listener);
     Util.displayIOException(e, listener);
 
@@ -271,27 +532,36 @@ public class SonarRunnerBuilder extends Builder {
     e.printStackTrace(listener.fatalError(errorMessage));
     // Badge should be added only once - SONARPLUGINS-1521
     if (build.getAction(BuildSonarAction.class) == null) {
-      build.addAction(new BuildSonarAction());
+      build.addAction(new BuildSonarAction(null, timings));
     }
   }
 
-  private int executeSonarRunner(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener, ArgumentListBuilder args, EnvVars env) throws IOException,
-    InterruptedException {
-    int r = launcher.launch().cmds(args).envs(env).stdout(listener).pwd(build.getModuleRoot()).join();
+  private int executeSonarRunner(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener, ArgumentListBuilder args, EnvVars env,
+    FilePath moduleRoot, AnalysisTimings timings) throws IOException, InterruptedException {
+    SonarUrlCaptureStream urlCapture = new SonarUrlCaptureStream(listener.getLogger(), build.getCharset(), build.getProject().getFullName(),
+      getInstallationName());
+    long launchStart = System.currentTimeMillis();
+    PhaseEvent launchEvent = PhaseEvent.begin(PhaseEvent.LAUNCH, build.getProject().getFullName(), getInstallationName());
+    int r;
+    try {
+      r = launcher.launch().cmds(args).envs(env).stdout(urlCapture).pwd(moduleRoot).join();
+      launchEvent.commit(args.toList().get(0), r);
+    } finally {
+      urlCapture.close();
+      timings.addProcess(urlCapture, launchStart);
+    }
     if (build.getAction(BuildSonarAction.class) == null && r == 0) {
-      String url = SonarUtils.extractSonarProjectURLFromLogs(build);
-      build.addAction(new BuildSonarAction(url));
+      build.addAction(new BuildSonarAction(urlCapture.getUrl(), timings));
     }
     return r;
   }
 
-  private void computeJdkToUse(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env) throws IOException, InterruptedException {
+  private void computeJdkToUse(AbstractBuild<?, ?> build, BuildListener listener, EnvVars env, Node node) throws IOException, InterruptedException {
     JDK jdkToUse = getJdkToUse(build.getProject());
     if (jdkToUse != null) {
-      Computer computer = Computer.currentComputer();
       // just in case we are not in a build
-      if (computer != null) {
-        jdkToUse = jdkToUse.forNode(computer.getNode(), listener);
+      if (node != null) {
+        jdkToUse = jdkToUse.forNode(node, listener);
       }
       jdkToUse.buildEnvVars(env);
     }
@@ -329,6 +599,19 @@ public class SonarRunnerBuilder extends Builder {
   @VisibleForTesting
   boolean populateConfiguration(ExtendedArgumentListBuilder args, AbstractBuild<?, ?> build,
     BuildListener listener, EnvVars env, SonarInstallation si) throws IOException, InterruptedException {
+    FilePath workspace = build.getWorkspace();
+    if (workspace == null) {
+      listener.fatalError("Project workspace is null");
+      return false;
+    }
+    SonarRunnerPreflight.Facts preflight = workspace.act(new SonarRunnerPreflight(null, getProjectSettingsCandidates(build, env),
+      build.getProject().getFullName(), getInstallationName()));
+    return populateConfiguration(args, build, listener, env, si, preflight, new AnalysisTimings());
+  }
+
+  private boolean populateConfiguration(ExtendedArgumentListBuilder args, AbstractBuild<?, ?> build,
+    BuildListener listener, EnvVars env, SonarInstallation si, SonarRunnerPreflight.Facts preflight, AnalysisTimings timings)
+    throws IOException, InterruptedException {
     if (si != null) {
       args.append("sonar.jdbc.url", si.getDatabaseUrl());
       args.appendMasked("sonar.jdbc.username", si.getDatabaseLogin());
@@ -345,48 +628,58 @@ public class SonarRunnerBuilder extends Builder {
 
     // Project properties
     if (StringUtils.isNotBlank(getProject())) {
-      String projectSettingsFile = env.expand(getProject());
-      FilePath projectSettingsFilePath = build.getModuleRoot().child(projectSettingsFile);
-      if (!projectSettingsFilePath.exists()) {
-        // because of the poor choice of getModuleRoot() with CVS/Subversion, people often get confused
-        // with where the build file path is relative to. Now it's too late to change this behavior
-        // due to compatibility issue, but at least we can make this less painful by looking for errors
-        // and diagnosing it nicely. See HUDSON-1782
-
-        // first check if this appears to be a valid relative path from workspace root
-        FilePath workspace = build.getWorkspace();
-        if (workspace == null) {
-          listener.fatalError("Project workspace is null");
-          return false;
-        }
-        FilePath projectSettingsFilePath2 = workspace.child(projectSettingsFile);
-        if (projectSettingsFilePath2.exists()) {
-          // This must be what the user meant. Let it continue.
-          projectSettingsFilePath = projectSettingsFilePath2;
-        } else {
-          // neither file exists. So this now really does look like an error.
-          listener.fatalError("Unable to find Sonar project settings at " + projectSettingsFilePath);
-          return false;
-        }
+      String projectSettings = preflight.getProjectSettings();
+      if (projectSettings == null) {
+        // neither file exists. So this now really does look like an error.
+        listener.fatalError("Unable to find Sonar project settings at " + build.getModuleRoot().child(env.expand(getProject())));
+        return false;
       }
-      args.append("project.settings", projectSettingsFilePath.getRemote());
+      args.append("project.settings", projectSettings);
     }
 
     // Additional properties
     Properties p = new Properties();
     p.load(new StringReader(env.expand(getProperties())));
-    loadProperties(args, p, build);
+    loadProperties(args, p, build, preflight, timings);
 
     return true;
   }
 
-    private void loadProperties(ExtendedArgumentListBuilder args, Properties p, AbstractBuild<?, ?> build) throws IOException, InterruptedException {
+  /**
+   * @return absolute paths where the project settings file may be found, by order of preference
+   */
+  private List<String> getProjectSettingsCandidates(AbstractBuild<?, ?> build, EnvVars env) {
+    if (StringUtils.isBlank(getProject())) {
+      return Collections.emptyList();
+    }
+    String projectSettingsFile = env.expand(getProject());
+    // because of the poor choice of getModuleRoot() with CVS/Subversion, people often get confused
+    // with where the build file path is relative to. Now it's too late to change this behavior
+    // due to compatibility issue, but at least we can make this less painful by looking for errors
+    // and diagnosing it nicely. See HUDSON-1782
+
+    // so also check if this appears to be a valid relative path from workspace root
+    return Arrays.asList(build.getModuleRoot().child(projectSettingsFile).getRemote(), build.getWorkspace().child(projectSettingsFile).getRemote());
+  }
+
+    private void loadProperties(ExtendedArgumentListBuilder args, Properties p, AbstractBuild<?, ?> build, SonarRunnerPreflight.Facts preflight,
+            AnalysisTimings timings) throws IOException, InterruptedException {
         boolean resolvePath = BooleanUtils.toBoolean(StringUtils.trim(p.getProperty("sonar.resolvePath")));
 
         Properties properties = p;
         if (resolvePath) {
-            PathResolverOperator resolver = new PathResolverOperator(build.getWorkspace());
+            if (!preflight.isWorkspaceExisting()) {
+                throw new AbortException("Unable to initiate path resolving because of non existing workspace");
+            }
+            PathResolverOperator resolver = new PathResolverOperator();
+            resolver.setWorkspace(build.getWorkspace());
+            resolver.setParallelism(NumberUtils.toInt(StringUtils.trim(p.getProperty("sonar.resolvePath.parallelism")), 1));
+            resolver.setCacheKey(build.getProject().getFullName());
+            resolver.setNodeName(build.getBuiltOnStr());
+            resolver.setInstallationName(getInstallationName());
+            long resolutionStart = System.currentTimeMillis();
             properties = resolver.resolvePaths(p);
+            timings.addSince(AnalysisTimings.Phase.PATH_RESOLUTION, resolutionStart);
         }
 
         for (Entry<Object, Object> entry : properties.entrySet()) {
@@ -34,9 +34,12 @@
 package hudson.plugins.sonar;
 
 import hudson.*;
+import hudson.model.Computer;
 import hudson.model.EnvironmentSpecific;
 import hudson.model.TaskListener;
 import hudson.model.Node;
+import hudson.plugins.sonar.utils.Logger;
+import hudson.slaves.ComputerListener;
 import hudson.slaves.NodeSpecific;
 import hudson.tools.ToolInstaller;
 import hudson.tools.ToolProperty;
@@ -47,19 +50,72 @@ import net.sf.json.JSONObject;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.StaplerRequest;
 
+import javax.annotation.CheckForNull;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
 
 /**
 * Represents a Sonar runner installation in a system.
 */
 public class SonarRunnerInstallation extends ToolInstallation implements EnvironmentSpecific<SonarRunnerInstallation>, NodeSpecific<SonarRunnerInstallation> {
 
-  @DataBoundConstructor
+  /**
+   * Executables found on nodes, by node name, installation name and home.
+   * They don't change until the node reconnects or the installation is reconfigured.
+   */
+  private static final ConcurrentMap<String, String> EXECUTABLES = new ConcurrentHashMap<String, String>();
+
+  /**
+   * Analyses share the classes of the runner and the JDK through an archive maintained on each node
+   * @since 2.3
+   */
+  private boolean classDataSharing;
+
+  /**
+   * @deprecated in 2.3
+   */
+  @Deprecated
   public SonarRunnerInstallation(String name, String home, List<? extends ToolProperty<?>> properties) {
+    this(name, home, properties, false);
+  }
+
+  @DataBoundConstructor
+  public SonarRunnerInstallation(String name, String home, List<? extends ToolProperty<?>> properties, boolean classDataSharing) {
     super(Util.fixEmptyAndTrim(name), Util.fixEmptyAndTrim(home), properties);
+    this.classDataSharing = classDataSharing;
+  }
+
+  public boolean isClassDataSharing() {
+    return classDataSharing;
+  }
+
+  /**
+   * @param node node this installation was translated for
+   * @param env environment of the analysis, giving the JDK
+   * @return JVM options sharing the classes of the analysis, or null if class data sharing isn't used
+   * @since 2.3
+   */
+  @CheckForNull
+  public String getClassDataSharingOptions(Node node, EnvVars env) throws InterruptedException {
+    if (!classDataSharing || getHome() == null) {
+      return null;
+    }
+    FilePath home = node.createPath(getHome());
+    if (home == null) {
+      return null;
+    }
+    try {
+      return home.act(new ClassDataSharingArchive(env.get("JAVA_HOME"), env.get("PATH")));
+    } catch (IOException e) {
+      // the analysis doesn't need it
+      Logger.LOG.log(Level.WARNING, "Unable to maintain the class data sharing archive of " + getHome(), e);
+      return null;
+    }
   }
 
   /**
@@ -69,15 +125,59 @@ public class SonarRunnerInstallation extends ToolInstallation implements Environ
     return launcher.getChannel().call(new MasterToSlaveCallable<String, IOException>() {
       @Override
       public String call() throws IOException {
-        File exe = getExeFile();
-        if (exe.exists()) {
-          return exe.getPath();
-        }
-        return null;
+        return findExecutable();
       }
     });
   }
 
+  /**
+   * To be called on the target system.
+   *
+   * @return the executable path of this Sonar runner, or null if it doesn't exist
+   */
+  String findExecutable() {
+    File exe = getExeFile();
+    if (exe.exists()) {
+      return exe.getPath();
+    }
+    return null;
+  }
+
+  /**
+   * @param node node this installation was translated for
+   * @return the executable path previously found on the given node, or null if unknown
+   * @since 2.3
+   */
+  @CheckForNull
+  public String getCachedExecutable(Node node) {
+    return EXECUTABLES.get(getExecutableKey(node));
+  }
+
+  /**
+   * Remembers the executable path found on the given node, until the node reconnects or the installations are reconfigured.
+   * @since 2.3
+   */
+  public void cacheExecutable(Node node, String executable) {
+    EXECUTABLES.put(getExecutableKey(node), executable);
+  }
+
+  /**
+   * Forgets the executable paths found on the given node.
+   * @since 2.3
+   */
+  public static void invalidateExecutables(String nodeName) {
+    String prefix = nodeName + '\n';
+    for (String key : EXECUTABLES.keySet()) {
+      if (key.startsWith(prefix)) {
+        EXECUTABLES.remove(key);
+      }
+    }
+  }
+
+  private String getExecutableKey(Node node) {
+    return node.getNodeName() + '\n' + getName() + '\n' + getHome();
+  }
+
   private File getExeFile() {
     String execName = Functions.isWindows() ? "sonar-runner.bat" : "sonar-runner";
     String home = Util.replaceMacro(getHome(), EnvVars.masterEnvVars);
@@ -89,12 +189,12 @@ public class SonarRunnerInstallation extends ToolInstallation implements Environ
 
   @Override
   public SonarRunnerInstallation forEnvironment(EnvVars environment) {
-    return new SonarRunnerInstallation(getName(), environment.expand(getHome()), getProperties().toList());
+    return new SonarRunnerInstallation(getName(), environment.expand(getHome()), getProperties().toList(), classDataSharing);
   }
 
   @Override
   public SonarRunnerInstallation forNode(Node node, TaskListener log) throws IOException, InterruptedException {
-    return new SonarRunnerInstallation(getName(), translateFor(node, log), getProperties().toList());
+    return new SonarRunnerInstallation(getName(), translateFor(node, log), getProperties().toList(), classDataSharing);
   }
 
   @Extension
@@ -128,9 +228,27 @@ public class SonarRunnerInstallation extends ToolInstallation implements Environ
 
     public void setInstallations(SonarRunnerInstallation... antInstallations) {
       this.installations = antInstallations;
+      EXECUTABLES.clear();
       save();
     }
 
   }
 
+  /**
+   * Executables may have been (re)installed or removed while the node was offline.
+   */
+  @Extension
+  public static final class ComputerListenerImpl extends ComputerListener {
+
+    @Override
+    public void onOnline(Computer c, TaskListener listener) {
+      invalidateExecutables(c.getName());
+    }
+
+    @Override
+    public void onOffline(Computer c) {
+      invalidateExecutables(c.getName());
+    }
+  }
+
 }
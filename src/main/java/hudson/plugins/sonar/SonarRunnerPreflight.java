@@ -0,0 +1,127 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.plugins.sonar.utils.PhaseEvent;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Collects on the node hosting the workspace all the facts {@link SonarRunnerBuilder} needs before launching an analysis,
+ * so that they cost a single round trip.
+ *
+ * @since 2.3
+ */
+class SonarRunnerPreflight extends MasterToSlaveFileCallable<SonarRunnerPreflight.Facts> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final SonarRunnerInstallation runnerInstallation;
+  private final List<String> projectSettingsCandidates;
+  private final String job;
+  private final String installation;
+
+  SonarRunnerPreflight(@CheckForNull SonarRunnerInstallation runnerInstallation, List<String> projectSettingsCandidates) {
+    this(runnerInstallation, projectSettingsCandidates, null, null);
+  }
+
+  /**
+   * @param runnerInstallation installation already translated for the node, or null if none is configured
+   * @param projectSettingsCandidates absolute paths of the project settings file to check, by order of preference
+   * @param job job reported with the {@link PhaseEvent} recorded on the node
+   * @param installation SonarQube installation reported with the {@link PhaseEvent} recorded on the node
+   */
+  SonarRunnerPreflight(@CheckForNull SonarRunnerInstallation runnerInstallation, List<String> projectSettingsCandidates,
+    @CheckForNull String job, @CheckForNull String installation) {
+    this.runnerInstallation = runnerInstallation;
+    this.projectSettingsCandidates = projectSettingsCandidates;
+    this.job = job;
+    this.installation = installation;
+  }
+
+  public Facts invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+    PhaseEvent event = PhaseEvent.begin(PhaseEvent.PREFLIGHT, job, installation);
+    String executable = runnerInstallation != null ? runnerInstallation.findExecutable() : null;
+    String projectSettings = null;
+    for (String candidate : projectSettingsCandidates) {
+      if (new File(candidate).exists()) {
+        projectSettings = candidate;
+        break;
+      }
+    }
+    event.commit(workspace.getPath(), projectSettingsCandidates.size());
+    return new Facts(workspace.isDirectory(), executable, projectSettings);
+  }
+
+  static final class Facts implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean workspaceExisting;
+    private final String executable;
+    private final String projectSettings;
+
+    Facts(boolean workspaceExisting, @CheckForNull String executable, @CheckForNull String projectSettings) {
+      this.workspaceExisting = workspaceExisting;
+      this.executable = executable;
+      this.projectSettings = projectSettings;
+    }
+
+    boolean isWorkspaceExisting() {
+      return workspaceExisting;
+    }
+
+    /**
+     * @return path of the SonarQube Runner executable, or null if not found
+     */
+    @CheckForNull
+    String getExecutable() {
+      return executable;
+    }
+
+    /**
+     * @return path of the first existing project settings file candidate, or null if none exists
+     */
+    @CheckForNull
+    String getProjectSettings() {
+      return projectSettings;
+    }
+  }
+}
@@ -34,21 +34,30 @@
 package hudson.plugins.sonar.model;
 
 import hudson.EnvVars;
+import hudson.FilePath;
 import hudson.Util;
 import hudson.model.BuildListener;
 import hudson.model.Result;
 import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
 import hudson.model.Cause;
 import hudson.plugins.sonar.Messages;
+import hudson.scm.ChangeLogSet;
 import hudson.triggers.SCMTrigger;
 import hudson.util.VariableResolver;
+import org.apache.commons.lang.StringUtils;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
 
+import javax.annotation.CheckForNull;
+
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * @author Evgeny Mandrikov
@@ -56,6 +65,8 @@ import java.util.List;
  */
 public class TriggersConfig implements Serializable {
 
+  private static final Pattern ABSOLUTE_WINDOWS_PATH = Pattern.compile("[a-zA-Z]:/.*");
+
   private boolean skipScmCause;
 
   private boolean skipUpstreamCause;
@@ -65,14 +76,42 @@ public class TriggersConfig implements Serializable {
    */
   private String envVar;
 
+  /**
+   * @since 2.3
+   */
+  private boolean skipSuperseded;
+
+  /**
+   * @since 2.3
+   */
+  private boolean skipIgnoredChanges;
+
+  /**
+   * Ant patterns of changed paths which don't need an analysis, separated by commas or new lines
+   * @since 2.3
+   */
+  private String ignoredChanges;
+
   public TriggersConfig() {
   }
 
-  @DataBoundConstructor
+  /**
+   * @deprecated in 2.3
+   */
+  @Deprecated
   public TriggersConfig(boolean skipScmCause, boolean skipUpstreamCause, String envVar) {
+    this(skipScmCause, skipUpstreamCause, envVar, false, false, null);
+  }
+
+  @DataBoundConstructor
+  public TriggersConfig(boolean skipScmCause, boolean skipUpstreamCause, String envVar, boolean skipSuperseded,
+    boolean skipIgnoredChanges, String ignoredChanges) {
     this.skipScmCause = skipScmCause;
     this.skipUpstreamCause = skipUpstreamCause;
     this.envVar = envVar;
+    this.skipSuperseded = skipSuperseded;
+    this.skipIgnoredChanges = skipIgnoredChanges;
+    this.ignoredChanges = ignoredChanges;
   }
 
   public boolean isSkipScmCause() {
@@ -99,6 +138,149 @@ public class TriggersConfig implements Serializable {
     this.envVar = envVar;
   }
 
+  /**
+   * @since 2.3
+   */
+  public boolean isSkipSuperseded() {
+    return skipSuperseded;
+  }
+
+  public void setSkipSuperseded(boolean skipSuperseded) {
+    this.skipSuperseded = skipSuperseded;
+  }
+
+  /**
+   * Only the latest build of a busy job needs to be analyzed. Newer builds which are already over don't count,
+   * since they won't analyze anything anymore. Can be checked again right before the analysis, since newer builds may have been scheduled in the meantime.
+   *
+   * @return message explaining why the analysis is skipped, null if the analysis isn't superseded
+   * @since 2.3
+   */
+  public String isSuperseded(AbstractBuild<?, ?> build) {
+    if (!isSkipSuperseded()) {
+      return null;
+    }
+    AbstractProject<?, ?> project = build.getProject();
+    if (project.isInQueue()) {
+      return Messages.SonarPublisher_Superseded();
+    }
+    for (AbstractBuild<?, ?> newer = project.getLastBuild(); newer != null && newer.getNumber() > build.getNumber(); newer = newer.getPreviousBuild()) {
+      if (newer.isBuilding()) {
+        return Messages.SonarPublisher_Superseded();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @since 2.3
+   */
+  public boolean isSkipIgnoredChanges() {
+    return skipIgnoredChanges;
+  }
+
+  public void setSkipIgnoredChanges(boolean skipIgnoredChanges) {
+    this.skipIgnoredChanges = skipIgnoredChanges;
+  }
+
+  /**
+   * @since 2.3
+   */
+  public String getIgnoredChanges() {
+    return Util.fixEmptyAndTrim(ignoredChanges);
+  }
+
+  public void setIgnoredChanges(String ignoredChanges) {
+    this.ignoredChanges = ignoredChanges;
+  }
+
+  /**
+   * Skips the analysis when every changed path either matches an ignored pattern or is out of the analyzed paths.
+   * Builds without changes are always analyzed, as well as builds analyzing absolute paths out of the workspace.
+   *
+   * @param workspace workspace of the build, to which absolute analyzed paths are made relative
+   * @param analyzedPaths paths or patterns of the analyzed sources and tests, empty if unknown
+   * @return message explaining why the analysis is skipped, null if some change may affect the analysis
+   * @since 2.3
+   */
+  public String isSkipChanges(AbstractBuild<?, ?> build, @CheckForNull FilePath workspace, List<String> analyzedPaths) {
+    if (!isSkipIgnoredChanges()) {
+      return null;
+    }
+    List<String> ignoredPatterns = new ArrayList<String>();
+    if (getIgnoredChanges() != null) {
+      for (String pattern : Util.tokenize(getIgnoredChanges(), ",\n")) {
+        if (pattern.trim().length() > 0) {
+          ignoredPatterns.add(normalize(pattern.trim()));
+        }
+      }
+    }
+    String workspacePath = workspace != null ? StringUtils.removeEnd(workspace.getRemote().replace('\\', '/'), "/") : null;
+    List<String> analyzedPatterns = new ArrayList<String>();
+    for (String path : analyzedPaths) {
+      String analyzedPath = relativize(path.trim().replace('\\', '/'), workspacePath);
+      if (analyzedPath == null || analyzedPath.length() == 0 || ".".equals(analyzedPath)) {
+        // the whole project is analyzed, or some path out of the workspace to which any change may matter
+        analyzedPatterns.clear();
+        break;
+      }
+      // changed paths are relative to the repository, which may not be the project base dir
+      analyzedPatterns.add(normalize("**/" + analyzedPath + "/**"));
+    }
+
+    boolean changed = false;
+    for (ChangeLogSet.Entry entry : build.getChangeSet()) {
+      for (String path : entry.getAffectedPaths()) {
+        changed = true;
+        if (!isIgnoredChange(normalize(path), ignoredPatterns, analyzedPatterns)) {
+          return null;
+        }
+      }
+    }
+    return changed ? Messages.SonarPublisher_IgnoredChanges() : null;
+  }
+
+  private static boolean isIgnoredChange(String path, List<String> ignoredPatterns, List<String> analyzedPatterns) {
+    for (String pattern : ignoredPatterns) {
+      if (SelectorUtils.matchPath(pattern, path)) {
+        return true;
+      }
+    }
+    if (analyzedPatterns.isEmpty()) {
+      return false;
+    }
+    for (String pattern : analyzedPatterns) {
+      if (SelectorUtils.matchPath(pattern, path)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Changed paths are relative, so must be the analyzed paths they are matched against.
+   *
+   * @return path relative to the workspace, null if the path is absolute and out of the workspace
+   */
+  private static String relativize(String path, String workspacePath) {
+    String relativePath = path;
+    if (isAbsolute(path)) {
+      if (workspacePath == null || !(path + "/").startsWith(workspacePath + "/")) {
+        return null;
+      }
+      relativePath = StringUtils.removeStart(path.substring(workspacePath.length()), "/");
+    }
+    return StringUtils.removeEnd(StringUtils.removeStart(relativePath, "./"), "/");
+  }
+
+  private static boolean isAbsolute(String path) {
+    return path.startsWith("/") || ABSOLUTE_WINDOWS_PATH.matcher(path).matches();
+  }
+
+  private static String normalize(String path) {
+    return path.replace('\\', '/').replace('/', File.separatorChar);
+  }
+
   public String isSkipSonar(AbstractBuild<?, ?> build, BuildListener listener) throws IOException, InterruptedException {
     Result result = build.getResult();
 
@@ -108,6 +290,11 @@ public class TriggersConfig implements Serializable {
       return Messages.SonarPublisher_BadBuildStatus(result.toString());
     }
 
+    String supersededMsg = isSuperseded(build);
+    if (supersededMsg != null) {
+      return supersededMsg;
+    }
+
     // skip analysis by environment variable or build parameter
     if (getEnvVar() != null) {
       // check against build parameters
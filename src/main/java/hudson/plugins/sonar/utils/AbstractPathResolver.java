@@ -48,6 +48,8 @@ import java.util.Set;
  */
 public abstract class AbstractPathResolver implements PathResolver {
 
+    private int parallelism = 1;
+
     public Set<String> resolvePath(FilePath workspace, String pathPattern) throws IOException, InterruptedException {
         if (workspace == null || StringUtils.isBlank(pathPattern)) {
             return Collections.emptySet();
@@ -57,4 +59,16 @@ public abstract class AbstractPathResolver implements PathResolver {
     }
 
     protected abstract Set<String> doResolvePath(FilePath workspace, String pathPattern) throws IOException, InterruptedException;
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism number of threads traversing subtrees of the workspace concurrently, 1 for a sequential traversal
+     * @since 2.3
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
 }
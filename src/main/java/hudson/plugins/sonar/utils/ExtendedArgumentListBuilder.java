@@ -36,6 +36,8 @@ package hudson.plugins.sonar.utils;
 import hudson.util.ArgumentListBuilder;
 import org.apache.commons.lang.StringUtils;
 
+import java.util.Properties;
+
 /**
  * @author Evgeny Mandrikov
  * @since 1.3.1
@@ -43,10 +45,20 @@ import org.apache.commons.lang.StringUtils;
 public class ExtendedArgumentListBuilder {
   private boolean unix;
   private ArgumentListBuilder builder;
+  private Properties properties;
 
   public ExtendedArgumentListBuilder(ArgumentListBuilder builder, boolean unix) {
+    this(builder, unix, null);
+  }
+
+  /**
+   * @param properties if not null, key/value pairs are collected in these properties instead of being appended as arguments
+   * @since 2.3
+   */
+  public ExtendedArgumentListBuilder(ArgumentListBuilder builder, boolean unix, Properties properties) {
     this.builder = builder;
     this.unix = unix;
+    this.properties = properties;
   }
 
   /**
@@ -59,7 +71,12 @@ public class ExtendedArgumentListBuilder {
    */
   public void append(String key, String value) {
     value = StringUtils.trimToEmpty(value);
-    if (StringUtils.isNotEmpty(value)) {
+    if (StringUtils.isEmpty(value)) {
+      return;
+    }
+    if (properties != null) {
+      properties.setProperty(key, value);
+    } else {
       append("-D" + key + "=" + value);
     }
   }
@@ -74,7 +91,12 @@ public class ExtendedArgumentListBuilder {
    */
   public void appendMasked(String key, String value) {
     value = StringUtils.trimToEmpty(value);
-    if (StringUtils.isNotEmpty(value)) {
+    if (StringUtils.isEmpty(value)) {
+      return;
+    }
+    if (properties != null) {
+      properties.setProperty(key, value);
+    } else {
       builder.addMasked("-D" + key + "=" + value);
     }
   }
@@ -94,6 +116,14 @@ public class ExtendedArgumentListBuilder {
     }
   }
 
+  /**
+   * @return properties in which key/value pairs are collected, or null if they are appended as arguments
+   * @since 2.3
+   */
+  public Properties getProperties() {
+    return properties;
+  }
+
   public boolean isUnix() {
     return unix;
   }
@@ -37,6 +37,7 @@ import hudson.AbortException;
 import hudson.FilePath;
 import hudson.Util;
 import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
 import jenkins.SlaveToMasterFileCallable;
 import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Project;
@@ -44,6 +45,10 @@ import org.apache.tools.ant.types.FileSet;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -78,6 +83,56 @@ public class FilePathUtils {
         });
     }
 
+    /**
+     * resolves a single pattern on the node hosting the base dir
+     *
+     * @param base
+     * @param resolver
+     * @param pathPattern
+     * @param parallelism number of threads traversing the base dir
+     * @return absolute paths of the matches
+     * @throws IOException
+     * @throws InterruptedException
+     * @since 2.3
+     */
+    public static Set<String> resolvePattern(FilePath base, LocalPathResolver resolver, String pathPattern, int parallelism) throws IOException, InterruptedException {
+        Map<String, List<String>> patterns = Collections.singletonMap(pathPattern, Collections.singletonList(pathPattern));
+        Map<String, LocalPathResolver> resolvers = Collections.singletonMap(pathPattern, resolver);
+        return resolvePatterns(base, patterns, resolvers, parallelism).get(pathPattern);
+    }
+
+    /**
+     * resolves the patterns of all keys on the node hosting the base dir, with a single traversal of the base dir
+     *
+     * @param base
+     * @param patterns patterns by key
+     * @param resolvers resolver of the patterns by key
+     * @param parallelism number of threads traversing the base dir
+     * @return absolute paths of the matches by key
+     * @throws IOException
+     * @throws InterruptedException
+     * @since 2.3
+     */
+    public static Map<String, Set<String>> resolvePatterns(FilePath base, Map<String, List<String>> patterns, Map<String, LocalPathResolver> resolvers, int parallelism) throws IOException, InterruptedException {
+        return resolvePatterns(base, patterns, resolvers, parallelism, false, null, null, null).getPaths();
+    }
+
+    /**
+     * @param recordTimestamps true to record the modification times of the traversed folders, so that the resolution can be reused
+     * @param previous result of a previous resolution of the same patterns, or null
+     * @param job job reported with the {@link PhaseEvent} of the traversal, or null
+     * @param installation SonarQube installation reported with the {@link PhaseEvent} of the traversal, or null
+     * @return null if the previous resolution is still up to date
+     */
+    static PathResolution resolvePatterns(FilePath base, Map<String, List<String>> patterns, Map<String, LocalPathResolver> resolvers, int parallelism,
+                                          boolean recordTimestamps, PathResolution previous, String job, String installation) throws IOException, InterruptedException {
+        if (base == null) {
+            throw new AbortException("Unable to find base dir");
+        }
+        Map<String, Long> previousTimestamps = previous != null ? previous.getTimestamps() : null;
+        return base.act(new PatternResolution(patterns, resolvers, parallelism, recordTimestamps, previousTimestamps, job, installation));
+    }
+
     /**
      * taken from FilePath#glob
      *
@@ -105,4 +160,58 @@ public class FilePathUtils {
         return rel.startsWith("/") || DRIVE_PATTERN.matcher(rel).matches() || UNC_PATTERN.matcher(rel).matches();
     }
 
+    private static final class PatternResolution extends MasterToSlaveFileCallable<PathResolution> {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, List<String>> patterns;
+        private final Map<String, LocalPathResolver> resolvers;
+        private final int parallelism;
+        private final boolean recordTimestamps;
+        private final Map<String, Long> previousTimestamps;
+        private final String job;
+        private final String installation;
+
+        private PatternResolution(Map<String, List<String>> patterns, Map<String, LocalPathResolver> resolvers, int parallelism,
+                                  boolean recordTimestamps, Map<String, Long> previousTimestamps, String job, String installation) {
+            this.patterns = patterns;
+            this.resolvers = resolvers;
+            this.parallelism = parallelism;
+            this.recordTimestamps = recordTimestamps;
+            this.previousTimestamps = previousTimestamps;
+            this.job = job;
+            this.installation = installation;
+        }
+
+        public PathResolution invoke(File baseDir, VirtualChannel channel) throws IOException, InterruptedException {
+            if (!baseDir.isDirectory()) {
+                throw new AbortException("Unable to find base dir");
+            }
+            PhaseEvent event = PhaseEvent.begin(PhaseEvent.WORKSPACE_WALK, job, installation);
+            if (previousTimestamps != null && new PathResolution(null, previousTimestamps).isUpToDate()) {
+                event.commit(baseDir.getPath() + " (up to date)", 0);
+                return null;
+            }
+            long scanStart = System.currentTimeMillis();
+            PatternWalker walker = new PatternWalker();
+            if (recordTimestamps) {
+                walker.recordTimestamps();
+            }
+            for (Map.Entry<String, List<String>> entry : patterns.entrySet()) {
+                LocalPathResolver resolver = resolvers.get(entry.getKey());
+                for (String pattern : entry.getValue()) {
+                    walker.addPattern(entry.getKey(), resolver.toAntPattern(pattern), resolver.isResolvingFolders());
+                }
+            }
+            Map<String, Set<String>> paths = walker.walk(baseDir, parallelism);
+            int matches = 0;
+            for (Set<String> matched : paths.values()) {
+                matches += matched.size();
+            }
+            event.commit(baseDir.getPath(), matches);
+
+            PathResolution resolution = new PathResolution(paths, walker.getTimestamps());
+            return resolution.isReusable(scanStart) ? resolution : new PathResolution(paths, null);
+        }
+    }
+
 }
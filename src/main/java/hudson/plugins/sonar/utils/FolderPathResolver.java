@@ -33,7 +33,6 @@
  */
 package hudson.plugins.sonar.utils;
 
-import com.google.common.collect.Sets;
 import hudson.FilePath;
 
 import java.io.IOException;
@@ -43,17 +42,20 @@ import java.util.Set;
  * @author spuchmann
  * @since 2.2
  */
-public class FolderPathResolver extends AbstractPathResolver {
+public class FolderPathResolver extends AbstractPathResolver implements LocalPathResolver {
+
+    private static final long serialVersionUID = 1L;
 
     public Set<String> doResolvePath(FilePath workspace, String pathPattern) throws IOException, InterruptedException {
-        Set<String> resolvedPathSet = Sets.newHashSet();
+        return FilePathUtils.resolvePattern(workspace, this, pathPattern, getParallelism());
+    }
 
-        FilePath[] resolvedPaths = FilePathUtils.listFolder(workspace, pathPattern);
-        for (FilePath resolvedPath : resolvedPaths) {
-            resolvedPathSet.add(resolvedPath.getRemote());
-        }
+    public String toAntPattern(String pathPattern) {
+        return pathPattern;
+    }
 
-        return resolvedPathSet;
+    public boolean isResolvingFolders() {
+        return true;
     }
 
 }
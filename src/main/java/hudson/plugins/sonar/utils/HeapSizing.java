@@ -0,0 +1,245 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import hudson.FilePath;
+import hudson.model.AbstractBuild;
+import hudson.model.TaskListener;
+import hudson.plugins.sonar.AnalysisMemoryAction;
+import hudson.plugins.sonar.Messages;
+import hudson.plugins.sonar.SonarInstallation;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sizes the heap of an analysis JVM from the GC log of the previous analyses of the job, within the bounds of the {@link SonarInstallation}.
+ * The GC log of the analysis is recorded as an {@link AnalysisMemoryAction} of the build.
+ *
+ * @since 2.3
+ */
+public final class HeapSizing {
+
+  /**
+   * Heap before and after a collection and committed heap, as logged by -Xloggc on Java 6 to 8 and by -Xlog:gc on later versions.
+   * Generations and metaspace, logged as "Name: before->after(committed)" with -XX:+PrintGCDetails, are left out.
+   */
+  private static final Pattern HEAP_CHANGE = Pattern.compile("(?<!: |\\d)(\\d+)([KMG])->(\\d+)([KMG])\\((\\d+)([KMG])\\)");
+  /**
+   * Pause time of a collection, in seconds up to Java 8 and in milliseconds after
+   */
+  private static final Pattern PAUSE = Pattern.compile(",\\s*([\\d.]+) secs\\]|\\s([\\d.]+)ms$");
+
+  private static final int HEAP_GRANULARITY = 64;
+  /**
+   * Heap in MB below which analyses hardly start, whatever the bounds of the installation
+   */
+  private static final int MIN_HEAP = 256;
+  private static final int MAX_PREVIOUS_BUILDS = 10;
+
+  private final AbstractBuild<?, ?> build;
+  private final int minHeap;
+  private final int maxHeap;
+  private int heapSize;
+  private FilePath gcLog;
+  private long startTime;
+
+  private HeapSizing(AbstractBuild<?, ?> build, int minHeap, int maxHeap) {
+    this.build = build;
+    this.minHeap = minHeap;
+    this.maxHeap = maxHeap;
+  }
+
+  /**
+   * @return heap sizing of the analysis of the build, or null if the installation doesn't size heaps
+   */
+  @CheckForNull
+  public static HeapSizing of(SonarInstallation installation, AbstractBuild<?, ?> build) {
+    if (installation.getMaxAnalysisHeap() <= 0) {
+      return null;
+    }
+    return new HeapSizing(build, installation.getMinAnalysisHeap(), installation.getMaxAnalysisHeap());
+  }
+
+  /**
+   * @param jvmOptions options of the analysis JVM, may be null
+   * @param dir folder of the GC log, on the node running the analysis
+   * @return options of the analysis JVM, with the GC log and the heap size learned from the previous analyses
+   */
+  public String apply(@CheckForNull String jvmOptions, FilePath dir, TaskListener listener) {
+    StringBuilder options = new StringBuilder(StringUtils.defaultString(jvmOptions));
+    gcLog = dir.child("sonar-gc-" + build.getNumber() + ".log");
+    if (gcLog.getRemote().contains(" ")) {
+      // JVM options are split on spaces
+      gcLog = null;
+    } else {
+      options.append(" -Xloggc:").append(gcLog.getRemote());
+    }
+    AbstractBuild<?, ?> previousBuild = build.getPreviousBuild();
+    for (int i = 0; previousBuild != null && i < MAX_PREVIOUS_BUILDS; i++) {
+      AnalysisMemoryAction previous = previousBuild.getAction(AnalysisMemoryAction.class);
+      // records of former versions may lack collections
+      if (previous != null && previous.hasCollections()) {
+        heapSize = recommend(previous, minHeap, maxHeap);
+        listener.getLogger().println(Messages.HeapSizing_Recommended(heapSize, previousBuild.getNumber(), previous.getLiveHeap(), previous.getGcPercentage()));
+        // the last -Xmx wins
+        options.append(" -Xmx").append(heapSize).append('m');
+        break;
+      }
+      previousBuild = previousBuild.getPreviousBuild();
+    }
+    startTime = System.currentTimeMillis();
+    return options.toString().trim();
+  }
+
+  /**
+   * Records the heap usage of the analysis, if it ran.
+   */
+  public void record(boolean success, TaskListener listener) throws InterruptedException {
+    if (gcLog == null) {
+      return;
+    }
+    long duration = System.currentTimeMillis() - startTime;
+    try {
+      if (!gcLog.exists()) {
+        return;
+      }
+      long[] stats = gcLog.act(new GcLogParser());
+      if (stats[1] == 0) {
+        // nothing to learn from, the heap of the next analysis is sized from an older one
+        listener.getLogger().println(Messages.HeapSizing_NoCollection());
+        return;
+      }
+      AnalysisMemoryAction memory = new AnalysisMemoryAction(heapSize, (int) (stats[0] / 1024), (int) (stats[3] / 1024), (int) (stats[1] / 1024), stats[2],
+        duration, success);
+      build.addAction(memory);
+      listener.getLogger().println(Messages.HeapSizing_Recorded(memory.getPeakHeap(), memory.getLiveHeap(), memory.getGcPercentage()));
+    } catch (IOException e) {
+      Logger.LOG.log(Level.WARNING, "Unable to read the GC log " + gcLog, e);
+    } finally {
+      try {
+        gcLog.delete();
+      } catch (IOException e) {
+        Logger.LOG.log(Level.FINE, "Unable to delete the GC log " + gcLog, e);
+      }
+    }
+  }
+
+  /**
+   * The heap used before collections grows with the heap given to the JVM, only the heap still used after collections,
+   * the live set, tells how much the analysis needs.
+   *
+   * @return heap in MB, in the given bounds, never below {@link #MIN_HEAP} unless the maximum heap is
+   */
+  static int recommend(AnalysisMemoryAction previous, int minHeap, int maxHeap) {
+    int heap;
+    if (previous.isMemoryPressure()) {
+      heap = 2 * Math.max(previous.getHeapSize(), previous.getCommittedHeap());
+    } else {
+      heap = previous.getLiveHeap() * 3 / 2;
+    }
+    heap = (heap + HEAP_GRANULARITY - 1) / HEAP_GRANULARITY * HEAP_GRANULARITY;
+    return Math.min(maxHeap, Math.max(Math.max(minHeap, MIN_HEAP), heap));
+  }
+
+  /**
+   * @return peak heap in KB, maximum committed heap in KB, GC time in milliseconds and live heap in KB, that is the maximum heap
+   * used after a full collection, or after any collection if there was no full collection
+   */
+  static long[] parse(BufferedReader reader) throws IOException {
+    long[] stats = new long[4];
+    long liveAfterFull = 0;
+    long liveAfterAny = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      boolean full = line.contains("Full GC") || line.contains("Pause Full");
+      boolean collection = false;
+      Matcher matcher = HEAP_CHANGE.matcher(line);
+      while (matcher.find()) {
+        collection = true;
+        long after = toKilobytes(matcher.group(3), matcher.group(4));
+        stats[0] = Math.max(stats[0], toKilobytes(matcher.group(1), matcher.group(2)));
+        stats[1] = Math.max(stats[1], toKilobytes(matcher.group(5), matcher.group(6)));
+        liveAfterAny = Math.max(liveAfterAny, after);
+        if (full) {
+          liveAfterFull = Math.max(liveAfterFull, after);
+        }
+      }
+      Matcher pause = PAUSE.matcher(line.trim());
+      if (collection && pause.find()) {
+        if (pause.group(1) != null) {
+          stats[2] += (long) (Double.parseDouble(pause.group(1)) * 1000);
+        } else {
+          stats[2] += (long) Double.parseDouble(pause.group(2));
+        }
+      }
+    }
+    stats[3] = liveAfterFull > 0 ? liveAfterFull : liveAfterAny;
+    return stats;
+  }
+
+  private static long toKilobytes(String value, String unit) {
+    long size = Long.parseLong(value);
+    if ("M".equals(unit)) {
+      return size * 1024;
+    } else if ("G".equals(unit)) {
+      return size * 1024 * 1024;
+    }
+    return size;
+  }
+
+  private static final class GcLogParser extends MasterToSlaveFileCallable<long[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    public long[] invoke(File file, VirtualChannel channel) throws IOException {
+      BufferedReader reader = new BufferedReader(new FileReader(file));
+      try {
+        return parse(reader);
+      } finally {
+        IOUtils.closeQuietly(reader);
+      }
+    }
+  }
+}
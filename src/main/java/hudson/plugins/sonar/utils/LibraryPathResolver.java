@@ -33,7 +33,6 @@
  */
 package hudson.plugins.sonar.utils;
 
-import com.google.common.collect.Sets;
 import hudson.FilePath;
 import org.apache.commons.lang.StringUtils;
 
@@ -44,22 +43,24 @@ import java.util.Set;
  * @author spuchmann
  * @since 2.2
  */
-public class LibraryPathResolver extends AbstractPathResolver {
+public class LibraryPathResolver extends AbstractPathResolver implements LocalPathResolver {
+
+    private static final long serialVersionUID = 1L;
 
     private static final String LIBRARY_EXTENSION = ".jar";
     private static final String LIBRARY_PATTERN = "*" + LIBRARY_EXTENSION;
 
     @Override
     protected Set<String> doResolvePath(FilePath workspace, String pathPattern) throws IOException, InterruptedException {
-        Set<String> resolvedPathSet = Sets.newHashSet();
+        return FilePathUtils.resolvePattern(workspace, this, pathPattern, getParallelism());
+    }
 
-        String pattern = checkAndFixPattern(pathPattern);
-        FilePath[] resolvedPaths = workspace.list(pattern);
-        for (FilePath resolvedPath : resolvedPaths) {
-            resolvedPathSet.add(resolvedPath.getRemote());
-        }
+    public String toAntPattern(String pathPattern) {
+        return checkAndFixPattern(pathPattern);
+    }
 
-        return resolvedPathSet;
+    public boolean isResolvingFolders() {
+        return false;
     }
 
     protected String checkAndFixPattern(String pattern) {
@@ -0,0 +1,105 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Paths resolved by a traversal of a workspace, along with the modification times of the traversed folders.
+ * As long as no folder was modified, entries were neither added nor removed and the paths are still valid.
+ *
+ * @since 2.3
+ */
+final class PathResolution implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Folder modifications that recent may not change the modification time, given the granularity of some file systems
+     */
+    private static final long RACY_WINDOW = 2000L;
+
+    private final Map<String, Set<String>> paths;
+    private final Map<String, Long> timestamps;
+
+    PathResolution(Map<String, Set<String>> paths, Map<String, Long> timestamps) {
+        this.paths = paths;
+        this.timestamps = timestamps;
+    }
+
+    Map<String, Set<String>> getPaths() {
+        return paths;
+    }
+
+    Map<String, Long> getTimestamps() {
+        return timestamps;
+    }
+
+    /**
+     * @param scanStart time at which the traversal started, on the node hosting the workspace
+     * @return false if a folder was modified too close to the traversal for a later modification to be noticed
+     */
+    boolean isReusable(long scanStart) {
+        if (timestamps == null) {
+            return false;
+        }
+        for (Long timestamp : timestamps.values()) {
+            if (timestamp > scanStart - RACY_WINDOW) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * To be called on the node hosting the workspace
+     *
+     * @return true if none of the traversed folders was modified or deleted since the traversal
+     */
+    boolean isUpToDate() {
+        if (timestamps == null) {
+            return false;
+        }
+        for (Map.Entry<String, Long> entry : timestamps.entrySet()) {
+            File folder = new File(entry.getKey());
+            if (!folder.isDirectory() || folder.lastModified() != entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
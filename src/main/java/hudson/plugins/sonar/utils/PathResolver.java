@@ -57,4 +57,10 @@ public interface PathResolver {
      */
     public Set<String> resolvePath(FilePath workspace, String pathPattern) throws IOException, InterruptedException;
 
+    /**
+     * @return number of threads traversing the workspace, 1 for a sequential traversal
+     * @since 2.3
+     */
+    public int getParallelism();
+
 }
@@ -35,6 +35,9 @@ package hudson.plugins.sonar.utils;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import hudson.AbortException;
@@ -64,8 +67,18 @@ public class PathResolverOperator {
 
     private static final Set<String> PATH_PROPERTIES = Sets.newHashSet(SONAR_TEST, SONAR_SOURCES, SONAR_JAVA_BINARIES_EXCLUDE, SONAR_JAVA_BINARIES_INCLUDE, SONAR_JAVA_LIBRARIES_INCLUDE, SONAR_JAVA_LIBRARIES_EXCLUDE);
 
+    /**
+     * Last batch resolution by cache key
+     */
+    private static final Cache<String, CachedResolution> CACHE = CacheBuilder.newBuilder().maximumSize(100).build();
+
     private Map<String, PathResolver> resolverMap = createResolverMap();
     private Joiner joiner = Joiner.on(",");
+    private Splitter splitter = Splitter.on(",").trimResults().omitEmptyStrings();
+    private boolean batchMode = true;
+    private String cacheKey;
+    private String nodeName;
+    private String installationName;
 
     protected Map<String, PathResolver> createResolverMap() {
         Map<String, PathResolver> resolverMap = Maps.newHashMap();
@@ -90,8 +103,9 @@ public class PathResolverOperator {
     }
 
     public Properties resolvePaths(Properties prop) throws IOException, InterruptedException {
+        PhaseEvent event = PhaseEvent.begin(PhaseEvent.PATH_RESOLUTION, cacheKey, installationName);
         Properties result = new Properties();
-        Map<String, Set<String>> rawResults = Maps.newHashMap();
+        Map<String, String> pathProperties = Maps.newHashMap();
         for (Map.Entry<Object, Object> entry : prop.entrySet()) {
             String key = entry.getKey().toString();
             if (!PATH_PROPERTIES.contains(key)) {
@@ -99,15 +113,25 @@ public class PathResolverOperator {
                 continue;
             }
 
-            String value = entry.getValue().toString();
-            rawResults.put(key, doResolvePathSegments(key, value));
+            pathProperties.put(key, entry.getValue().toString());
+        }
+
+        Map<String, Set<String>> rawResults = batchMode ? doResolveBatch(pathProperties) : null;
+        if (rawResults == null) {
+            rawResults = Maps.newHashMap();
+            for (Map.Entry<String, String> entry : pathProperties.entrySet()) {
+                rawResults.put(entry.getKey(), doResolvePathSegments(entry.getKey(), entry.getValue()));
+            }
         }
 
         rawResults = mergeInternalProperties(rawResults);
 
+        int resolvedPaths = 0;
         for (Map.Entry<String, Set<String>> rawEntry : rawResults.entrySet()) {
             result.put(rawEntry.getKey(), joiner.join(rawEntry.getValue()));
+            resolvedPaths += rawEntry.getValue().size();
         }
+        event.commit(joiner.withKeyValueSeparator("=").join(pathProperties), resolvedPaths);
         return result;
     }
 
@@ -126,7 +150,7 @@ public class PathResolverOperator {
             return Sets.newHashSet(value);
         }
 
-        Iterable<String> pathIterable = Splitter.on(",").trimResults().omitEmptyStrings().split(trimmedValue);
+        Iterable<String> pathIterable = splitter.split(trimmedValue);
         Set<String> result = Sets.newHashSet();
         for (String path : pathIterable) {
             result.addAll(doResolvePath(key, path));
@@ -135,15 +159,102 @@ public class PathResolverOperator {
     }
 
     protected Set<String> doResolvePath(String key, String path) throws IOException, InterruptedException {
-        if (MapUtils.isNotEmpty(resolverMap) && resolverMap.containsKey(key)) {
-            return resolverMap.get(key).resolvePath(workspace, path);
+        PathResolver resolver = getPathResolver(key);
+        if (resolver != null) {
+            return resolver.resolvePath(this.workspace, path);
         }
 
-        if (defaultPathResolver != null) {
-            return this.defaultPathResolver.resolvePath(this.workspace, path);
+        return Collections.emptySet();
+    }
+
+    /**
+     * resolves the patterns of all the given properties in a single remote call
+     *
+     * @param pathProperties
+     * @return resolved paths by key or null if one of the resolvers can't be run on the node hosting the workspace
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    protected Map<String, Set<String>> doResolveBatch(Map<String, String> pathProperties) throws IOException, InterruptedException {
+        Map<String, Set<String>> result = Maps.newHashMap();
+        Map<String, List<String>> patterns = Maps.newHashMap();
+        Map<String, LocalPathResolver> resolvers = Maps.newHashMap();
+        for (Map.Entry<String, String> entry : pathProperties.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (StringUtils.isBlank(value)) {
+                result.put(key, Sets.newHashSet(value));
+                continue;
+            }
+
+            PathResolver resolver = getPathResolver(key);
+            if (resolver == null) {
+                result.put(key, new HashSet<String>());
+            } else if (resolver instanceof LocalPathResolver) {
+                patterns.put(key, Lists.newArrayList(splitter.split(value.trim())));
+                resolvers.put(key, (LocalPathResolver) resolver);
+            } else {
+                return null;
+            }
         }
 
-        return Collections.emptySet();
+        if (!patterns.isEmpty()) {
+            int parallelism = 1;
+            for (LocalPathResolver resolver : resolvers.values()) {
+                parallelism = Math.max(parallelism, resolver.getParallelism());
+            }
+            if (cacheKey == null || workspace == null) {
+                result.putAll(FilePathUtils.resolvePatterns(workspace, patterns, resolvers, parallelism, false, null, cacheKey, installationName).getPaths());
+            } else {
+                result.putAll(doResolveCached(patterns, resolvers, parallelism));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * resolves the patterns unless none of the folders traversed by the last resolution with the same cache key was modified since
+     */
+    private Map<String, Set<String>> doResolveCached(Map<String, List<String>> patterns, Map<String, LocalPathResolver> resolvers, int parallelism) throws IOException, InterruptedException {
+        String signature = signature(patterns, resolvers);
+        CachedResolution cached = CACHE.getIfPresent(cacheKey);
+        PathResolution previous = cached != null && cached.signature.equals(signature) ? cached.resolution : null;
+
+        PathResolution resolution = FilePathUtils.resolvePatterns(workspace, patterns, resolvers, parallelism, true, previous, cacheKey, installationName);
+        if (resolution == null) {
+            resolution = previous;
+        } else if (resolution.getTimestamps() != null) {
+            CACHE.put(cacheKey, new CachedResolution(signature, resolution));
+        } else {
+            CACHE.invalidate(cacheKey);
+        }
+
+        // resolved sets get modified while merging properties
+        Map<String, Set<String>> result = Maps.newHashMap();
+        for (Map.Entry<String, Set<String>> entry : resolution.getPaths().entrySet()) {
+            result.put(entry.getKey(), Sets.newHashSet(entry.getValue()));
+        }
+        return result;
+    }
+
+    private String signature(Map<String, List<String>> patterns, Map<String, LocalPathResolver> resolvers) {
+        StringBuilder signature = new StringBuilder(StringUtils.defaultString(nodeName)).append(':').append(workspace.getRemote());
+        for (Map.Entry<String, List<String>> entry : new TreeMap<String, List<String>>(patterns).entrySet()) {
+            LocalPathResolver resolver = resolvers.get(entry.getKey());
+            signature.append('\n').append(entry.getKey()).append(resolver.isResolvingFolders() ? "/" : "");
+            for (String pattern : entry.getValue()) {
+                signature.append(',').append(resolver.toAntPattern(pattern));
+            }
+        }
+        return signature.toString();
+    }
+
+    protected PathResolver getPathResolver(String key) {
+        if (MapUtils.isNotEmpty(resolverMap) && resolverMap.containsKey(key)) {
+            return resolverMap.get(key);
+        }
+
+        return defaultPathResolver;
     }
 
     protected Map<String, Set<String>> mergeInternalProperties(Map<String, Set<String>> rawResults) {
@@ -193,4 +304,85 @@ public class PathResolverOperator {
     public void setDefaultPathResolver(PathResolver defaultPathResolver) {
         this.defaultPathResolver = defaultPathResolver;
     }
+
+    /**
+     * @param parallelism number of threads traversing subtrees of the workspace concurrently, 1 for a sequential traversal
+     * @since 2.3
+     */
+    public void setParallelism(int parallelism) {
+        if (resolverMap != null) {
+            for (PathResolver resolver : resolverMap.values()) {
+                if (resolver instanceof AbstractPathResolver) {
+                    ((AbstractPathResolver) resolver).setParallelism(parallelism);
+                }
+            }
+        }
+        if (defaultPathResolver instanceof AbstractPathResolver) {
+            ((AbstractPathResolver) defaultPathResolver).setParallelism(parallelism);
+        }
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    /**
+     * @param cacheKey key under which the last batch resolution is kept, typically the job name, or null to always resolve
+     * @since 2.3
+     */
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    /**
+     * @param nodeName node hosting the workspace, so that the same workspace path on another node isn't taken for the cached one
+     * @since 2.3
+     */
+    public void setNodeName(String nodeName) {
+        this.nodeName = nodeName;
+    }
+
+    public String getInstallationName() {
+        return installationName;
+    }
+
+    /**
+     * @param installationName SonarQube installation reported with the path resolution events, along with the cache key as the job
+     * @since 2.3
+     */
+    public void setInstallationName(String installationName) {
+        this.installationName = installationName;
+    }
+
+    /**
+     * forgets the last batch resolution kept under the given key
+     */
+    public static void invalidate(String cacheKey) {
+        CACHE.invalidate(cacheKey);
+    }
+
+    public boolean isBatchMode() {
+        return batchMode;
+    }
+
+    /**
+     * @param batchMode if true, patterns of all keys are resolved in a single remote call when all resolvers support it
+     */
+    public void setBatchMode(boolean batchMode) {
+        this.batchMode = batchMode;
+    }
+
+    private static final class CachedResolution {
+        private final String signature;
+        private final PathResolution resolution;
+
+        private CachedResolution(String signature, PathResolution resolution) {
+            this.signature = signature;
+            this.resolution = resolution;
+        }
+    }
 }
@@ -0,0 +1,328 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Matches any number of Ant patterns with a single traversal of a folder tree.
+ * Folders which can't contain a match of any pattern are not traversed, and Ant default excludes apply,
+ * so the result is the same as one {@link DirectoryScanner} per pattern.
+ *
+ * @since 2.3
+ */
+class PatternWalker {
+
+    //Taken from FilePath (unfortunately there is no access to this code part)
+    private static final Pattern DRIVE_PATTERN = Pattern.compile("[A-Za-z]:[\\\\/].*"),
+            UNC_PATTERN = Pattern.compile("^\\\\\\\\.*");
+
+    private final List<CompiledPattern> patterns = Lists.newArrayList();
+    private final String[] excludes;
+    private boolean matchingFiles;
+    private Map<String, Long> timestamps;
+
+    PatternWalker() {
+        String[] defaultExcludes = DirectoryScanner.getDefaultExcludes();
+        excludes = new String[defaultExcludes.length];
+        for (int i = 0; i < defaultExcludes.length; i++) {
+            excludes[i] = normalize(defaultExcludes[i]);
+        }
+    }
+
+    /**
+     * @param key key under which matches of the pattern are returned
+     * @param antPattern pattern relative to the base folder
+     * @param folders true to match folders, false to match files
+     * @throws IOException if the pattern is absolute
+     */
+    void addPattern(String key, String antPattern, boolean folders) throws IOException {
+        if (isAbsolute(antPattern)) {
+            throw new IOException("Expecting Ant GLOB pattern, but saw '" + antPattern + "'. See http://ant.apache.org/manual/Types/fileset.html for syntax");
+        }
+        patterns.add(new CompiledPattern(key, normalize(antPattern), folders));
+        matchingFiles |= !folders;
+    }
+
+    /**
+     * Records the modification time of every traversed folder during the next walks
+     *
+     * @see #getTimestamps()
+     */
+    void recordTimestamps() {
+        timestamps = new ConcurrentHashMap<String, Long>();
+    }
+
+    /**
+     * @return modification times of the traversed folders by absolute path, or null if not recorded
+     */
+    Map<String, Long> getTimestamps() {
+        return timestamps;
+    }
+
+    /**
+     * @return absolute paths of the matching folders and files, by key
+     */
+    Map<String, Set<String>> walk(File baseDir) {
+        Map<String, Set<String>> result = newResult();
+        match(baseDir, "", true, result);
+        walk(new Folder(baseDir, ""), result);
+        return result;
+    }
+
+    /**
+     * Same as {@link #walk(File)}, but subtrees of the base folder are traversed concurrently by the given number of threads.
+     * Useful when listing folders is bound by I/O latency, i.e. on network file systems.
+     *
+     * @return absolute paths of the matching folders and files, by key
+     */
+    Map<String, Set<String>> walk(File baseDir, int parallelism) throws IOException, InterruptedException {
+        if (parallelism <= 1) {
+            return walk(baseDir);
+        }
+        Map<String, Set<String>> result = newResult();
+        match(baseDir, "", true, result);
+        File[] children = list(baseDir);
+        if (children == null) {
+            return result;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamingThreadFactory(new DaemonThreadFactory(), "SonarQube path resolver"));
+        try {
+            List<Future<Map<String, Set<String>>>> subtrees = Lists.newArrayList();
+            for (File child : children) {
+                final String relativePath = child.getName();
+                boolean isFolder = child.isDirectory();
+                if (isFolder || matchingFiles) {
+                    match(child, relativePath, isFolder, result);
+                }
+                if (isFolder && shouldTraverse(relativePath) && !isSymlinkLoop(baseDir, child)) {
+                    final Folder folder = new Folder(child, relativePath + File.separatorChar);
+                    subtrees.add(executor.submit(new Callable<Map<String, Set<String>>>() {
+                        public Map<String, Set<String>> call() {
+                            Map<String, Set<String>> subtreeResult = newResult();
+                            walk(folder, subtreeResult);
+                            return subtreeResult;
+                        }
+                    }));
+                }
+            }
+            for (Future<Map<String, Set<String>>> subtree : subtrees) {
+                for (Map.Entry<String, Set<String>> entry : subtree.get().entrySet()) {
+                    result.get(entry.getKey()).addAll(entry.getValue());
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    private Map<String, Set<String>> newResult() {
+        Map<String, Set<String>> result = Maps.newHashMap();
+        for (CompiledPattern pattern : patterns) {
+            result.put(pattern.key, Sets.<String>newHashSet());
+        }
+        return result;
+    }
+
+    private void walk(Folder start, Map<String, Set<String>> result) {
+        Deque<Folder> folders = new ArrayDeque<Folder>();
+        folders.push(start);
+        while (!folders.isEmpty()) {
+            Folder folder = folders.pop();
+            File[] children = list(folder.file);
+            if (children == null) {
+                continue;
+            }
+            for (File child : children) {
+                String relativePath = folder.relativePath + child.getName();
+                boolean isFolder = child.isDirectory();
+                if (isFolder || matchingFiles) {
+                    match(child, relativePath, isFolder, result);
+                }
+                if (isFolder && shouldTraverse(relativePath) && !isSymlinkLoop(folder.file, child)) {
+                    folders.push(new Folder(child, relativePath + File.separatorChar));
+                }
+            }
+        }
+    }
+
+    private File[] list(File folder) {
+        if (timestamps != null) {
+            timestamps.put(folder.getPath(), folder.lastModified());
+        }
+        return folder.listFiles();
+    }
+
+    private void match(File file, String relativePath, boolean isFolder, Map<String, Set<String>> result) {
+        boolean excluded = false;
+        boolean excludedChecked = false;
+        for (CompiledPattern pattern : patterns) {
+            if (pattern.folders == isFolder && SelectorUtils.matchPath(pattern.pattern, relativePath, true)) {
+                if (!excludedChecked) {
+                    excluded = isExcluded(relativePath);
+                    excludedChecked = true;
+                }
+                if (excluded) {
+                    return;
+                }
+                result.get(pattern.key).add(file.getPath());
+            }
+        }
+    }
+
+    /**
+     * Same as DirectoryScanner#couldHoldIncluded and DirectoryScanner#contentsExcluded
+     */
+    private boolean shouldTraverse(String relativePath) {
+        return couldHoldMatch(relativePath) && !isContentExcluded(relativePath);
+    }
+
+    private boolean couldHoldMatch(String relativePath) {
+        for (CompiledPattern pattern : patterns) {
+            if (SelectorUtils.matchPatternStart(pattern.pattern, relativePath, true)
+                    && (pattern.recursive || pattern.depth > depth(relativePath))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isExcluded(String relativePath) {
+        for (String exclude : excludes) {
+            if (SelectorUtils.matchPath(exclude, relativePath, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isContentExcluded(String relativePath) {
+        String folder = relativePath + File.separatorChar;
+        for (String exclude : excludes) {
+            if (exclude.endsWith("**") && SelectorUtils.matchPath(exclude.substring(0, exclude.length() - 2), folder, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSymlinkLoop(File parent, File folder) {
+        try {
+            if (!FileUtils.isSymlink(folder)) {
+                return false;
+            }
+            String target = folder.getCanonicalPath();
+            String parentPath = parent.getCanonicalPath();
+            return parentPath.equals(target) || parentPath.startsWith(target + File.separatorChar);
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static int depth(String path) {
+        return SelectorUtils.tokenizePathAsArray(path).length;
+    }
+
+    /**
+     * Same normalization as Ant PatternSet
+     */
+    private static String normalize(String pattern) {
+        String normalized = pattern.replace('/', File.separatorChar).replace('\\', File.separatorChar);
+        if (normalized.endsWith(File.separator)) {
+            normalized += "**";
+        }
+        return normalized;
+    }
+
+    /**
+     * Taken from FilePath#isAbsolute(String)
+     */
+    private static boolean isAbsolute(String rel) {
+        return rel.startsWith("/") || DRIVE_PATTERN.matcher(rel).matches() || UNC_PATTERN.matcher(rel).matches();
+    }
+
+    private static final class CompiledPattern {
+        private final String key;
+        private final String pattern;
+        private final boolean folders;
+        private final boolean recursive;
+        private final int depth;
+
+        private CompiledPattern(String key, String pattern, boolean folders) {
+            this.key = key;
+            this.pattern = pattern;
+            this.folders = folders;
+            this.recursive = pattern.contains("**");
+            this.depth = depth(pattern);
+        }
+    }
+
+    private static final class Folder {
+        private final File file;
+        private final String relativePath;
+
+        private Folder(File file, String relativePath) {
+            this.file = file;
+            this.relativePath = relativePath;
+        }
+    }
+}
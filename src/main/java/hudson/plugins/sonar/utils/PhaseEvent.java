@@ -0,0 +1,190 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import javax.annotation.CheckForNull;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * JDK Flight Recorder event of a phase of an analysis, carrying the job and the SonarQube installation,
+ * so that a recording started with <tt>jcmd &lt;pid&gt; JFR.start</tt> gives a per-phase profile of the analyses.
+ * The plugin builds for Java 6, so the event type is defined at runtime with <tt>jdk.jfr.EventFactory</tt>;
+ * on JVMs without it nothing is recorded.
+ *
+ * @since 2.3
+ */
+public final class PhaseEvent {
+
+  public static final String PREFLIGHT = "Preflight";
+  public static final String PATH_RESOLUTION = "Path resolution";
+  public static final String WORKSPACE_WALK = "Workspace walk";
+  public static final String ARGUMENTS = "Arguments";
+  public static final String LAUNCH = "Launch";
+  public static final String URL_EXTRACTION = "URL extraction";
+
+  private static final PhaseEvent DISABLED = new PhaseEvent(null);
+
+  /**
+   * Indexes of the fields of the event type
+   */
+  private static final int PHASE = 0;
+  private static final int JOB = 1;
+  private static final int INSTALLATION = 2;
+  private static final int DETAIL = 3;
+  private static final int COUNT = 4;
+  private static final int TIME = 5;
+
+  private static Object factory;
+  private static Method newEvent;
+  private static Method begin;
+  private static Method end;
+  private static Method commit;
+  private static Method set;
+
+  static {
+    try {
+      Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+      Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+      Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+      Class<?> event = Class.forName("jdk.jfr.Event");
+
+      Constructor<?> annotation = annotationElement.getConstructor(Class.class, Object.class);
+      List<Object> annotations = Arrays.asList(
+        annotation.newInstance(Class.forName("jdk.jfr.Name"), "hudson.plugins.sonar.Phase"),
+        annotation.newInstance(Class.forName("jdk.jfr.Label"), "SonarQube Analysis Phase"),
+        annotation.newInstance(Class.forName("jdk.jfr.Category"), new String[] {"Jenkins", "SonarQube"}));
+      Constructor<?> field = valueDescriptor.getConstructor(Class.class, String.class);
+      Constructor<?> annotatedField = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+      List<Object> fields = Arrays.asList(
+        field.newInstance(String.class, "phase"),
+        field.newInstance(String.class, "job"),
+        field.newInstance(String.class, "installation"),
+        field.newInstance(String.class, "detail"),
+        field.newInstance(long.class, "count"),
+        annotatedField.newInstance(long.class, "time",
+          Arrays.asList(annotation.newInstance(Class.forName("jdk.jfr.Timespan"), "MILLISECONDS"))));
+
+      factory = eventFactory.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+      newEvent = eventFactory.getMethod("newEvent");
+      begin = event.getMethod("begin");
+      end = event.getMethod("end");
+      commit = event.getMethod("commit");
+      set = event.getMethod("set", int.class, Object.class);
+    } catch (ClassNotFoundException e) {
+      // no Flight Recorder before Java 9
+      factory = null;
+    } catch (Exception e) {
+      Logger.LOG.log(Level.FINE, "Unable to define the Flight Recorder event of the analysis phases", e);
+      factory = null;
+    }
+  }
+
+  private final Object event;
+  private final long startTime = System.currentTimeMillis();
+
+  private PhaseEvent(@CheckForNull Object event) {
+    this.event = event;
+  }
+
+  /**
+   * @return started event of the phase, to be committed once the phase is over
+   */
+  public static PhaseEvent begin(String phase, @CheckForNull String job, @CheckForNull String installation) {
+    if (factory == null) {
+      return DISABLED;
+    }
+    try {
+      Object event = newEvent.invoke(factory);
+      set.invoke(event, PHASE, phase);
+      set.invoke(event, JOB, job);
+      set.invoke(event, INSTALLATION, installation);
+      begin.invoke(event);
+      return new PhaseEvent(event);
+    } catch (Exception e) {
+      Logger.LOG.log(Level.FINE, "Unable to start the Flight Recorder event of " + phase, e);
+      return DISABLED;
+    }
+  }
+
+  /**
+   * Records a phase spread over the output of the analysis, which isn't a single span of time.
+   *
+   * @param time time spent in the phase, in milliseconds
+   */
+  public static void record(String phase, @CheckForNull String job, @CheckForNull String installation, @CheckForNull String detail, long count,
+    long time) {
+    if (factory == null) {
+      return;
+    }
+    try {
+      Object event = newEvent.invoke(factory);
+      set.invoke(event, PHASE, phase);
+      set.invoke(event, JOB, job);
+      set.invoke(event, INSTALLATION, installation);
+      set.invoke(event, DETAIL, detail);
+      set.invoke(event, COUNT, count);
+      set.invoke(event, TIME, time);
+      commit.invoke(event);
+    } catch (Exception e) {
+      Logger.LOG.log(Level.FINE, "Unable to record the Flight Recorder event of " + phase, e);
+    }
+  }
+
+  public static boolean isAvailable() {
+    return factory != null;
+  }
+
+  /**
+   * @param detail what the phase worked on, like the patterns resolved or the executable launched
+   * @param count size of the result of the phase, like the number of resolved paths, of arguments or of scanned bytes, or the exit code of a launch
+   */
+  public void commit(@CheckForNull String detail, long count) {
+    if (event == null) {
+      return;
+    }
+    try {
+      end.invoke(event);
+      set.invoke(event, DETAIL, detail);
+      set.invoke(event, COUNT, count);
+      set.invoke(event, TIME, System.currentTimeMillis() - startTime);
+      commit.invoke(event);
+    } catch (Exception e) {
+      Logger.LOG.log(Level.FINE, "Unable to commit a Flight Recorder event", e);
+    }
+  }
+}
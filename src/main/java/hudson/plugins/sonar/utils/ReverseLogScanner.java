@@ -0,0 +1,121 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import org.apache.commons.lang.ArrayUtils;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+
+/**
+ * Reads a log file backward, block by block, and stops at the last line containing the URL of the project dashboard.
+ * SonarQube prints this URL at the very end of the analysis, so the cost depends on the distance of the marker to the
+ * end of the file rather than on the size of the file.
+ *
+ * @since 2.3
+ */
+final class ReverseLogScanner {
+
+  static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  private final int blockSize;
+
+  ReverseLogScanner() {
+    this(DEFAULT_BLOCK_SIZE);
+  }
+
+  ReverseLogScanner(int blockSize) {
+    this.blockSize = blockSize;
+  }
+
+  @CheckForNull
+  String findLastUrl(File log, Charset charset) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(log, "r");
+    try {
+      boolean matchBytes = SonarUrlMatcher.supportsBytes(charset);
+      byte[] block = new byte[blockSize];
+      // beginning of the line which ends in the blocks already read
+      byte[] pending = ArrayUtils.EMPTY_BYTE_ARRAY;
+      long pos = raf.length();
+      while (pos > 0) {
+        int len = (int) Math.min(blockSize, pos);
+        pos -= len;
+        raf.seek(pos);
+        raf.readFully(block, 0, len);
+
+        int end = len;
+        for (int i = len - 1; i >= 0; i--) {
+          if (block[i] == '\n') {
+            String url = matchLine(block, i + 1, end, pending, charset, matchBytes);
+            if (url != null) {
+              return url;
+            }
+            pending = ArrayUtils.EMPTY_BYTE_ARRAY;
+            end = i;
+          }
+        }
+        pending = concat(block, 0, end, pending);
+      }
+      return matchLine(block, 0, 0, pending, charset, matchBytes);
+    } finally {
+      raf.close();
+    }
+  }
+
+  @CheckForNull
+  private static String matchLine(byte[] block, int from, int to, byte[] pending, Charset charset, boolean matchBytes) {
+    byte[] line = block;
+    int start = from;
+    int end = to;
+    if (pending.length > 0) {
+      line = concat(block, from, to, pending);
+      start = 0;
+      end = line.length;
+    }
+    if (matchBytes) {
+      return SonarUrlMatcher.extract(line, start, end, charset);
+    }
+    return SonarUtils.extractSonarProjectURLFromLine(new String(line, start, end - start, charset));
+  }
+
+  private static byte[] concat(byte[] block, int from, int to, byte[] pending) {
+    byte[] result = new byte[to - from + pending.length];
+    System.arraycopy(block, from, result, 0, to - from);
+    System.arraycopy(pending, 0, result, to - from, pending.length);
+    return result;
+  }
+}
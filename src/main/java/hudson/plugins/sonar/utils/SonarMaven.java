@@ -45,6 +45,7 @@ import hudson.model.BuildListener;
 import hudson.model.AbstractBuild;
 import hudson.model.Computer;
 import hudson.model.JDK;
+import hudson.model.Node;
 import hudson.plugins.sonar.SonarInstallation;
 import hudson.plugins.sonar.SonarPublisher;
 import hudson.tasks.Maven;
@@ -54,6 +55,7 @@ import jenkins.mvn.GlobalSettingsProvider;
 import jenkins.mvn.SettingsProvider;
 import org.apache.commons.lang.StringUtils;
 
+import javax.annotation.CheckForNull;
 import java.io.IOException;
 
 /**
@@ -66,10 +68,15 @@ public final class SonarMaven extends Maven {
    */
   private static final String TARGET = "-e -B";
 
+  /**
+   * Stops the JIT at the C1 compiler, whose code is ready sooner, since the C2 compiler hardly pays off for a Maven JVM
+   * only running the analysis. Unknown options are ignored by older JVMs.
+   */
+  static final String QUICK_START_JVM_OPTIONS = "-XX:+IgnoreUnrecognizedVMOptions -XX:TieredStopAtLevel=1";
+
   private final SonarPublisher publisher;
   private final String additionalProperties;
-  private JDK jdk;
-  private final BuildListener listener;
+  private final JDK jdk;
   private final LocalRepositoryLocator locaRepository;
 
   public SonarMaven(String additionalProperties, String name, String pom, String jvmOptions, LocalRepositoryLocator locaRepository,
@@ -80,7 +87,6 @@ public final class SonarMaven extends Maven {
     this.locaRepository = locaRepository;
     this.publisher = publisher;
     this.jdk = jdk;
-    this.listener = listener;
   }
 
   /**
@@ -130,6 +136,18 @@ public final class SonarMaven extends Maven {
     }
   }
 
+  /**
+   * Visibility of a method has been relaxed for tests.
+   *
+   * @return MAVEN_OPTS of the analysis, the options of the job taking precedence
+   */
+  static String getMavenOpts(@CheckForNull String mavenOpts, boolean quickStartJvm) {
+    if (!quickStartJvm) {
+      return mavenOpts;
+    }
+    return StringUtils.isBlank(mavenOpts) ? QUICK_START_JVM_OPTIONS : (QUICK_START_JVM_OPTIONS + " " + mavenOpts);
+  }
+
   @Override
   public DescriptorImpl getDescriptor() {
     return (DescriptorImpl) Jenkins.getInstance().getDescriptorOrDie(Maven.class);
@@ -158,6 +176,12 @@ public final class SonarMaven extends Maven {
       && StringUtils.isNotEmpty(mavenModuleProject.getMavenOpts())) {
       mvnOptions = mavenModuleProject.getMavenOpts();
     }
+    mvnOptions = getMavenOpts(mvnOptions, sonarPublisher.isQuickStartJvm());
+    HeapSizing heapSizing = HeapSizing.of(sonarInstallation, build);
+    FilePath workspace = build.getWorkspace();
+    if (heapSizing != null && workspace != null) {
+      mvnOptions = heapSizing.apply(mvnOptions, workspace, listener);
+    }
     // Private Repository and Alternate Settings
     LocalRepositoryLocator locaRepositoryToUse = usesLocalRepository ? new PerJobLocalRepositoryLocator() : new DefaultLocalRepositoryLocator();
     SettingsProvider settingsToUse = settings;
@@ -174,11 +198,27 @@ public final class SonarMaven extends Maven {
     String aditionalProperties = ""
       + (StringUtils.isNotBlank(installationProperties) ? installationProperties : "") + " "
       + (StringUtils.isNotBlank(jobProperties) ? jobProperties : "");
+    // JDK of the node running the analysis
+    Computer computer = Computer.currentComputer();
+    Node node = computer != null ? computer.getNode() : build.getBuiltOn();
+    if (jdk != null && node != null) {
+      jdk = jdk.forNode(node, listener);
+    }
     // Execute Maven
     // SONARPLUGINS-487
     pom = build.getModuleRoot().child(pom).getRemote();
-    return new SonarMaven(aditionalProperties, mavenName, pom, mvnOptions, locaRepositoryToUse, sonarPublisher, listener, jdk, settingsToUse, globalSettingsToUse)
-      .perform(build, launcher, listener);
+    boolean success = false;
+    PhaseEvent event = PhaseEvent.begin(PhaseEvent.LAUNCH, build.getProject().getFullName(), sonarInstallation.getName());
+    try {
+      success = new SonarMaven(aditionalProperties, mavenName, pom, mvnOptions, locaRepositoryToUse, sonarPublisher, listener, jdk, settingsToUse,
+        globalSettingsToUse).perform(build, launcher, listener);
+      event.commit(pom, success ? 0 : 1);
+      return success;
+    } finally {
+      if (heapSizing != null) {
+        heapSizing.record(success, listener);
+      }
+    }
   }
 
   @Override
@@ -186,11 +226,6 @@ public final class SonarMaven extends Maven {
     super.buildEnvVars(env, mi);
     // Override JDK in case it is set on Sonar publisher
     if (jdk != null) {
-      Computer computer = Computer.currentComputer();
-      if (computer != null) {
-        // just in case were not in a build
-        jdk = jdk.forNode(computer.getNode(), listener);
-      }
       jdk.buildEnvVars(env);
     }
   }
@@ -0,0 +1,166 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import hudson.console.LineTransformationOutputStream;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Console decorator which forwards everything to the build log and catches the URL of the project dashboard
+ * as soon as SonarQube prints it, so that the log doesn't have to be read again after the analysis.
+ * It also notes when the output starts and the upload time of the analysis report.
+ *
+ * @since 2.3
+ */
+public class SonarUrlCaptureStream extends LineTransformationOutputStream {
+
+  private static final byte[] UPLOAD_MARKER = SonarUrlMatcher.UPLOAD_MARKER.getBytes(Charset.forName("US-ASCII"));
+  private static final Pattern UPLOAD_TIME = Pattern.compile(SonarUrlMatcher.UPLOAD_MARKER + "(\\d+)ms");
+
+  private final OutputStream out;
+  private final Charset charset;
+  private final boolean matchBytes;
+  private final String job;
+  private final String installation;
+  private long lines;
+  private boolean closed;
+  private volatile String url;
+  private volatile long firstOutputTime;
+  private volatile long matchNanos;
+  private volatile long uploadTime;
+
+  public SonarUrlCaptureStream(OutputStream out, Charset charset) {
+    this(out, charset, null, null);
+  }
+
+  /**
+   * @param job job reported with the {@link PhaseEvent} of the URL extraction
+   * @param installation SonarQube installation reported with the {@link PhaseEvent} of the URL extraction
+   */
+  public SonarUrlCaptureStream(OutputStream out, Charset charset, @CheckForNull String job, @CheckForNull String installation) {
+    this.out = out;
+    this.charset = charset;
+    this.matchBytes = SonarUrlMatcher.supportsBytes(charset);
+    this.job = job;
+    this.installation = installation;
+  }
+
+  @Override
+  protected void eol(byte[] b, int len) throws IOException {
+    out.write(b, 0, len);
+    lines++;
+    long start = System.nanoTime();
+    if (firstOutputTime == 0) {
+      firstOutputTime = System.currentTimeMillis();
+    }
+    String found;
+    if (matchBytes) {
+      found = SonarUrlMatcher.extract(b, 0, len, charset);
+      if (found == null && SonarUrlMatcher.indexOf(b, 0, len, UPLOAD_MARKER) >= 0) {
+        extractUploadTime(new String(b, 0, len, charset));
+      }
+    } else {
+      String line = new String(b, 0, len, charset);
+      found = SonarUtils.extractSonarProjectURLFromLine(line);
+      if (found == null && line.contains(SonarUrlMatcher.UPLOAD_MARKER)) {
+        extractUploadTime(line);
+      }
+    }
+    if (found != null) {
+      url = found;
+    }
+    matchNanos += System.nanoTime() - start;
+  }
+
+  private void extractUploadTime(String line) {
+    Matcher matcher = UPLOAD_TIME.matcher(line);
+    if (matcher.find()) {
+      uploadTime = Long.parseLong(matcher.group(1));
+    }
+  }
+
+  /**
+   * @return last URL of the project dashboard seen in the output, <tt>null</tt> if none
+   */
+  @CheckForNull
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * @return time of the first line of output, 0 if none
+   */
+  public long getFirstOutputTime() {
+    return firstOutputTime;
+  }
+
+  /**
+   * @return time spent searching the URL in the output, in milliseconds
+   */
+  public long getMatchTime() {
+    return matchNanos / 1000000;
+  }
+
+  /**
+   * @return upload time of the analysis report logged by SonarQube, in milliseconds, 0 if not logged
+   */
+  public long getUploadTime() {
+    return uploadTime;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  /**
+   * Processes the pending incomplete line, if any. The underlying stream is the build log, so it is flushed but never closed.
+   * The search of the URL is spread over the output, it is reported as a single {@link PhaseEvent} once there was some output.
+   */
+  @Override
+  public void close() throws IOException {
+    forceEol();
+    out.flush();
+    if (!closed && lines > 0) {
+      PhaseEvent.record(PhaseEvent.URL_EXTRACTION, job, installation, url, lines, getMatchTime());
+    }
+    closed = true;
+  }
+}
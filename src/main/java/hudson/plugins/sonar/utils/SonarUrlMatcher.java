@@ -0,0 +1,183 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import javax.annotation.CheckForNull;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Finds the URL of the project dashboard in lines of logs without regular expression and without creating a
+ * {@link String} for lines which don't contain it. The "ANALYSIS SUCCESSFUL" marker is searched with the
+ * Boyer-Moore-Horspool algorithm directly in the buffers holding the logs.
+ *
+ * @since 2.3
+ */
+final class SonarUrlMatcher {
+
+  static final String MARKER = "ANALYSIS SUCCESSFUL, you can browse ";
+
+  /**
+   * Logged by SonarQube 5.2 and later, followed by the upload time of the analysis report in milliseconds
+   */
+  static final String UPLOAD_MARKER = "Analysis report uploaded in ";
+
+  private static final byte[] MARKER_BYTES = MARKER.getBytes(Charset.forName("US-ASCII"));
+  private static final int[] SHIFT = new int[256];
+
+  static {
+    Arrays.fill(SHIFT, MARKER_BYTES.length);
+    for (int i = 0; i < MARKER_BYTES.length - 1; i++) {
+      SHIFT[MARKER_BYTES[i]] = MARKER_BYTES.length - 1 - i;
+    }
+  }
+
+  private SonarUrlMatcher() {
+  }
+
+  /**
+   * @return true if the marker is encoded with the same bytes in the given charset, i.e. lines can be matched without decoding
+   */
+  static boolean supportsBytes(Charset charset) {
+    return Arrays.equals(MARKER.getBytes(charset), MARKER_BYTES);
+  }
+
+  /**
+   * @param line buffer containing the line, with or without its line terminator
+   * @return URL following the last marker of the line, <tt>null</tt> if the line doesn't contain the marker
+   */
+  @CheckForNull
+  static String extract(byte[] line, int from, int to, Charset charset) {
+    int index = lastIndexOf(line, from, to);
+    if (index < 0) {
+      return null;
+    }
+    int start = index + MARKER_BYTES.length;
+    int end = to;
+    while (end > start && (line[end - 1] == '\n' || line[end - 1] == '\r')) {
+      end--;
+    }
+    return new String(line, start, end - start, charset);
+  }
+
+  /**
+   * @param line buffer containing the line, with or without its line terminator
+   * @return URL following the last marker of the line, <tt>null</tt> if the line doesn't contain the marker
+   */
+  @CheckForNull
+  static String extract(char[] line, int from, int to) {
+    int index = lastIndexOf(line, from, to);
+    if (index < 0) {
+      return null;
+    }
+    int start = index + MARKER_BYTES.length;
+    int end = to;
+    while (end > start && (line[end - 1] == '\n' || line[end - 1] == '\r')) {
+      end--;
+    }
+    return new String(line, start, end - start);
+  }
+
+  static int lastIndexOf(byte[] buf, int from, int to) {
+    int result = -1;
+    int index = indexOf(buf, from, to);
+    while (index >= 0) {
+      result = index;
+      index = indexOf(buf, index + 1, to);
+    }
+    return result;
+  }
+
+  static int lastIndexOf(char[] buf, int from, int to) {
+    int result = -1;
+    int index = indexOf(buf, from, to);
+    while (index >= 0) {
+      result = index;
+      index = indexOf(buf, index + 1, to);
+    }
+    return result;
+  }
+
+  static int indexOf(byte[] buf, int from, int to) {
+    int last = MARKER_BYTES.length - 1;
+    int i = from;
+    while (i + last < to) {
+      int j = last;
+      while (buf[i + j] == MARKER_BYTES[j]) {
+        if (j == 0) {
+          return i;
+        }
+        j--;
+      }
+      i += SHIFT[buf[i + last] & 0xFF];
+    }
+    return -1;
+  }
+
+  /**
+   * Naive search of a short pattern, cheap enough for markers looked for in every line.
+   */
+  static int indexOf(byte[] buf, int from, int to, byte[] pattern) {
+    byte first = pattern[0];
+    for (int i = from; i + pattern.length <= to; i++) {
+      if (buf[i] == first) {
+        int j = 1;
+        while (j < pattern.length && buf[i + j] == pattern[j]) {
+          j++;
+        }
+        if (j == pattern.length) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  static int indexOf(char[] buf, int from, int to) {
+    int last = MARKER_BYTES.length - 1;
+    int i = from;
+    while (i + last < to) {
+      int j = last;
+      while (buf[i + j] == MARKER_BYTES[j]) {
+        if (j == 0) {
+          return i;
+        }
+        j--;
+      }
+      char c = buf[i + last];
+      i += c < SHIFT.length ? SHIFT[c] : MARKER_BYTES.length;
+    }
+    return -1;
+  }
+}
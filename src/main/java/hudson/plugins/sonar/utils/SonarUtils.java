@@ -38,11 +38,12 @@ import hudson.model.AbstractProject;
 import hudson.model.Run;
 import hudson.plugins.sonar.BuildSonarAction;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 
 import javax.annotation.CheckForNull;
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.util.regex.Matcher;
+import java.io.Reader;
 import java.util.regex.Pattern;
 
 /**
@@ -54,7 +55,9 @@ public final class SonarUtils {
   /**
    * Pattern for Sonar project URL in logs
    */
-  public static final String URL_PATTERN_IN_LOGS = ".*" + Pattern.quote("ANALYSIS SUCCESSFUL, you can browse ") + "(.*)";
+  public static final String URL_PATTERN_IN_LOGS = ".*" + Pattern.quote(SonarUrlMatcher.MARKER) + "(.*)";
+
+  private static final int BUFFER_SIZE = 8192;
 
   /**
    * Hide utility-class constructor.
@@ -63,25 +66,89 @@ public final class SonarUtils {
   }
 
   /**
-   * Read logs of the build to find URL of the project dashboard in Sonar
+   * Read logs of the build to find URL of the project dashboard in Sonar.
+   * Uncompressed logs are read backward from the end, as the URL is printed at the end of the analysis.
    */
   public static String extractSonarProjectURLFromLogs(AbstractBuild<?, ?> build) throws IOException {
-    BufferedReader br = null;
-    String url = null;
+    PhaseEvent event = PhaseEvent.begin(PhaseEvent.URL_EXTRACTION, build.getProject().getFullName(), null);
+    File logFile = build.getLogFile();
+    if (logFile != null && logFile.isFile() && !logFile.getName().endsWith(".gz")) {
+      String url = new ReverseLogScanner().findLastUrl(logFile, build.getCharset());
+      event.commit(url, logFile.length());
+      return url;
+    }
+
+    Reader reader = null;
     try {
-      br = new BufferedReader(build.getLogReader());
-      String strLine;
-      while ((strLine = br.readLine()) != null) {
-        Pattern p = Pattern.compile(URL_PATTERN_IN_LOGS);
-        Matcher match = p.matcher(strLine);
-        if (match.matches()) {
-          url = match.group(1);
+      reader = build.getLogReader();
+      String url = extractSonarProjectURL(reader);
+      event.commit(url, logFile != null ? logFile.length() : 0);
+      return url;
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
+  }
+
+  /**
+   * Lines are matched in place in a reused buffer, only lines spanning two reads are copied.
+   */
+  @CheckForNull
+  private static String extractSonarProjectURL(Reader reader) throws IOException {
+    char[] buf = new char[BUFFER_SIZE];
+    char[] line = new char[BUFFER_SIZE];
+    int lineLength = 0;
+    String url = null;
+    int read;
+    while ((read = reader.read(buf)) != -1) {
+      int start = 0;
+      for (int i = 0; i < read; i++) {
+        if (buf[i] != '\n') {
+          continue;
         }
+        String found;
+        if (lineLength == 0) {
+          found = SonarUrlMatcher.extract(buf, start, i);
+        } else {
+          line = append(line, lineLength, buf, start, i);
+          found = SonarUrlMatcher.extract(line, 0, lineLength + i - start);
+          lineLength = 0;
+        }
+        if (found != null) {
+          url = found;
+        }
+        start = i + 1;
       }
-    } finally {
-      IOUtils.closeQuietly(br);
+      line = append(line, lineLength, buf, start, read);
+      lineLength += read - start;
+    }
+    String found = SonarUrlMatcher.extract(line, 0, lineLength);
+    return found != null ? found : url;
+  }
+
+  private static char[] append(char[] line, int lineLength, char[] buf, int from, int to) {
+    char[] result = line;
+    if (lineLength + to - from > line.length) {
+      result = new char[Math.max(line.length * 2, lineLength + to - from)];
+      System.arraycopy(line, 0, result, 0, lineLength);
+    }
+    System.arraycopy(buf, from, result, lineLength, to - from);
+    return result;
+  }
+
+  /**
+   * Find URL of the project dashboard in a single line of logs
+   *
+   * @param line line of logs, with or without its line terminator
+   * @return URL of the project dashboard or <tt>null</tt> if the line doesn't contain it
+   * @since 2.3
+   */
+  @CheckForNull
+  public static String extractSonarProjectURLFromLine(String line) {
+    int index = line.lastIndexOf(SonarUrlMatcher.MARKER);
+    if (index < 0) {
+      return null;
     }
-    return url;
+    return StringUtils.stripEnd(line.substring(index + SonarUrlMatcher.MARKER.length()), "\r\n");
   }
 
   /**
@@ -0,0 +1,104 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnalysisFingerprintTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private SonarInstallation installation;
+  private EnvVars env;
+
+  @Before
+  public void setUp() {
+    installation = mock(SonarInstallation.class);
+    when(installation.getName()).thenReturn("default");
+    when(installation.getServerUrl()).thenReturn("http://localhost:9000");
+    env = new EnvVars();
+  }
+
+  @Test
+  public void shouldRequireRevision() {
+    assertThat(AnalysisFingerprint.of(env, installation, "/ws", Collections.<String>emptyList())).isNull();
+    env.put("GIT_COMMIT", "abc");
+    assertThat(AnalysisFingerprint.of(env, installation, "/ws", Collections.<String>emptyList())).isNotNull();
+  }
+
+  @Test
+  public void shouldNotDependOnWorkspaceNorSettingsOrder() {
+    env.put("SVN_REVISION", "42");
+    String fingerprint = AnalysisFingerprint.of(env, installation, "/ws", Arrays.asList("-Dsonar.projectBaseDir=/ws/trunk", "-Dsonar.sources=src"));
+
+    assertThat(AnalysisFingerprint.of(env, installation, "/ws@2", Arrays.asList("-Dsonar.sources=src", "-Dsonar.projectBaseDir=/ws@2/trunk")))
+      .isEqualTo(fingerprint);
+    assertThat(AnalysisFingerprint.of(env, installation, "/ws", Arrays.asList("-Dsonar.projectBaseDir=/ws/trunk", "-Dsonar.sources=src/main")))
+      .isNotEqualTo(fingerprint);
+
+    env.put("SVN_REVISION", "43");
+    assertThat(AnalysisFingerprint.of(env, installation, "/ws", Arrays.asList("-Dsonar.projectBaseDir=/ws/trunk", "-Dsonar.sources=src")))
+      .isNotEqualTo(fingerprint);
+  }
+
+  @Test
+  public void shouldDependOnSettingsFileContent() throws Exception {
+    env.put("GIT_COMMIT", "abc");
+    File settingsFile = temp.newFile("sonar-project.properties");
+    FileUtils.write(settingsFile, "sonar.sources=src");
+    FilePath settings = new FilePath(settingsFile);
+    String fingerprint = AnalysisFingerprint.of(env, installation, "/ws", Arrays.asList(AnalysisFingerprint.contentOf("project.settings", settings)));
+
+    assertThat(AnalysisFingerprint.of(env, installation, "/ws", Arrays.asList(AnalysisFingerprint.contentOf("project.settings", settings))))
+      .isEqualTo(fingerprint);
+    FileUtils.write(settingsFile, "sonar.sources=src/main");
+    assertThat(AnalysisFingerprint.of(env, installation, "/ws", Arrays.asList(AnalysisFingerprint.contentOf("project.settings", settings))))
+      .isNotEqualTo(fingerprint);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.FilePath;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Node;
+import hudson.util.StreamTaskListener;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnalysisSnapshotTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File workspace;
+  private File nodeRoot;
+  private AnalysisSnapshot snapshot;
+  private StreamTaskListener listener;
+
+  @Before
+  public void prepareSnapshot() throws Exception {
+    workspace = temp.newFolder("workspace");
+    nodeRoot = temp.newFolder("node");
+    FileUtils.write(new File(workspace, "module/src/Foo.java"), "class Foo {}");
+    FileUtils.write(new File(workspace, "module/lib/bar.jar"), "");
+    FileUtils.write(new File(workspace, "module/target/huge.zip"), "");
+
+    AbstractProject<?, ?> project = mock(AbstractProject.class);
+    when(project.getFullName()).thenReturn("folder/job");
+    AbstractBuild<?, ?> build = mock(AbstractBuild.class);
+    when(build.getNumber()).thenReturn(3);
+    when((Object) build.getProject()).thenReturn(project);
+    Node node = mock(Node.class);
+    when(node.getRootPath()).thenReturn(new FilePath(nodeRoot));
+    when(node.getDisplayName()).thenReturn("analysis");
+
+    snapshot = new AnalysisSnapshot(build, new FilePath(workspace), new FilePath(new File(workspace, "module")), node);
+    listener = new StreamTaskListener(new ByteArrayOutputStream());
+  }
+
+  @Test
+  public void shouldCopyAnalyzedPathsOnly() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("sonar.projectBaseDir", new File(workspace, "module").getAbsolutePath());
+    properties.setProperty("sonar.sources", "src");
+    properties.setProperty("sonar.libraries", new File(workspace, "module/lib/bar.jar").getAbsolutePath());
+
+    assertThat(snapshot.getIncludes(properties, listener)).containsOnly("module/src", "module/src/**", "module/lib/bar.jar", "module/lib/bar.jar/**");
+
+    Properties relocated = snapshot.copy(properties, listener);
+    File target = new File(nodeRoot, "sonar-analysis/folder_job_3");
+    assertThat(new File(target, "module/src/Foo.java")).exists();
+    assertThat(new File(target, "module/lib/bar.jar")).exists();
+    assertThat(new File(target, "module/target")).doesNotExist();
+    assertThat(snapshot.getModuleRoot().getRemote()).isEqualTo(new File(target, "module").getPath());
+    assertThat(relocated.getProperty("sonar.projectBaseDir")).isEqualTo(new File(target, "module").getAbsolutePath());
+    assertThat(relocated.getProperty("sonar.sources")).isEqualTo("src");
+
+    snapshot.delete();
+    assertThat(target).doesNotExist();
+  }
+
+  @Test
+  public void shouldCopyWholeWorkspaceWithoutPaths() {
+    assertThat(snapshot.getIncludes(new Properties(), listener)).containsOnly("**");
+
+    Properties properties = new Properties();
+    properties.setProperty("sonar.modules", "a,b");
+    properties.setProperty("sonar.sources", "src");
+    assertThat(snapshot.getIncludes(properties, listener)).containsOnly("**");
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.util.StreamTaskListener;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnalysisThrottleTest {
+
+  @Test
+  public void shouldQueueAnalysesBeyondLimit() throws Exception {
+    SonarInstallation installation = mock(SonarInstallation.class);
+    when(installation.getName()).thenReturn("shouldQueueAnalysesBeyondLimit");
+    final AnalysisThrottle throttle = AnalysisThrottle.of(installation);
+    assertThat(AnalysisThrottle.of(installation)).isSameAs(throttle);
+
+    ByteArrayOutputStream log = new ByteArrayOutputStream();
+    final StreamTaskListener listener = new StreamTaskListener(log);
+    throttle.acquire(1, listener);
+
+    final CountDownLatch started = new CountDownLatch(1);
+    Thread waiting = new Thread() {
+      @Override
+      public void run() {
+        try {
+          throttle.acquire(1, listener);
+          started.countDown();
+        } catch (InterruptedException e) {
+          // test fails on timeout
+        }
+      }
+    };
+    waiting.start();
+
+    assertThat(started.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    assertThat(throttle.getWaiting()).isEqualTo(1);
+    assertThat(log.toString()).contains("position 1 in queue, 1 analyses running");
+
+    throttle.release();
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(throttle.getRunning()).isEqualTo(1);
+    assertThat(throttle.getWaiting()).isEqualTo(0);
+    throttle.release();
+  }
+
+  @Test
+  public void shouldNotWaitWithoutLimit() throws Exception {
+    SonarInstallation installation = mock(SonarInstallation.class);
+    when(installation.getName()).thenReturn("shouldNotWaitWithoutLimit");
+    AnalysisThrottle throttle = AnalysisThrottle.of(installation);
+    StreamTaskListener listener = new StreamTaskListener(new ByteArrayOutputStream());
+
+    throttle.acquire(0, listener);
+    throttle.acquire(0, listener);
+    assertThat(throttle.getRunning()).isEqualTo(2);
+    throttle.release();
+    throttle.release();
+  }
+}
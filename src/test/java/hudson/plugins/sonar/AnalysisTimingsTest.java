@@ -0,0 +1,58 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnalysisTimingsTest {
+
+  @Test
+  public void shouldSumAndSummarizePhases() {
+    AnalysisTimings timings = new AnalysisTimings();
+    assertThat(timings.getSummary()).isEmpty();
+
+    timings.add(AnalysisTimings.Phase.ANALYSIS, 1000);
+    timings.add(AnalysisTimings.Phase.QUEUE, 20);
+    timings.add(AnalysisTimings.Phase.PREFLIGHT, 5);
+    timings.add(AnalysisTimings.Phase.PREFLIGHT, 7);
+
+    assertThat(timings.getPreflight()).isEqualTo(12);
+    assertThat(timings.getAnalysis()).isEqualTo(1000);
+    assertThat(timings.getUpload()).isZero();
+    // phases are listed in their order
+    assertThat(timings.getSummary()).isEqualTo("queue 20 ms, preflight 12 ms, analysis 1000 ms");
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncAnalysisTest {
+
+  @Test
+  public void shouldTrackAnalysesByNode() {
+    AbstractProject<?, ?> project = mockProject("shouldTrackAnalysesByNode");
+    AbstractProject<?, ?> other = mockProject("other");
+    final AtomicBoolean analyzed = new AtomicBoolean();
+
+    AsyncAnalysis.Task task = new AsyncAnalysis.Task(mockBuild(project, "agent"), new Runnable() {
+      @Override
+      public void run() {
+        analyzed.set(true);
+      }
+    });
+
+    assertThat(AsyncAnalysis.isRunning(project, "agent")).isTrue();
+    // the workspace of other nodes isn't read by the analysis
+    assertThat(AsyncAnalysis.isRunning(project, "")).isFalse();
+    assertThat(AsyncAnalysis.isRunning(other, "agent")).isFalse();
+
+    task.createExecutable().run();
+    assertThat(analyzed.get()).isTrue();
+    assertThat(AsyncAnalysis.isRunning(project, "agent")).isFalse();
+  }
+
+  @Test
+  public void shouldTrackConcurrentAnalysesOfSameJob() {
+    AbstractProject<?, ?> project = mockProject("shouldTrackConcurrentAnalysesOfSameJob");
+
+    AsyncAnalysis.Task first = new AsyncAnalysis.Task(mockBuild(project, "agent"), mock(Runnable.class));
+    AsyncAnalysis.Task second = new AsyncAnalysis.Task(mockBuild(project, "agent"), mock(Runnable.class));
+
+    first.createExecutable().run();
+    // the workspace is still read by the second analysis
+    assertThat(AsyncAnalysis.isRunning(project, "agent")).isTrue();
+
+    second.createExecutable().run();
+    assertThat(AsyncAnalysis.isRunning(project, "agent")).isFalse();
+  }
+
+  @Test
+  public void shouldStopTrackingOnce() {
+    AbstractProject<?, ?> project = mockProject("shouldStopTrackingOnce");
+
+    AsyncAnalysis.Task cancelled = new AsyncAnalysis.Task(mockBuild(project, "agent"), mock(Runnable.class));
+    AsyncAnalysis.Task running = new AsyncAnalysis.Task(mockBuild(project, "agent"), mock(Runnable.class));
+
+    // cancelled from the queue, then done again
+    cancelled.done();
+    cancelled.done();
+    assertThat(AsyncAnalysis.isRunning(project, "agent")).isTrue();
+
+    running.createExecutable().run();
+    assertThat(AsyncAnalysis.isRunning(project, "agent")).isFalse();
+  }
+
+  @Test
+  public void shouldStopTrackingFailedAnalyses() {
+    AbstractProject<?, ?> project = mockProject("shouldStopTrackingFailedAnalyses");
+
+    AsyncAnalysis.Task task = new AsyncAnalysis.Task(mockBuild(project, "agent"), new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException("failed");
+      }
+    });
+
+    try {
+      task.createExecutable().run();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    assertThat(AsyncAnalysis.isRunning(project, "agent")).isFalse();
+  }
+
+  private static AbstractProject<?, ?> mockProject(String name) {
+    AbstractProject<?, ?> project = mock(AbstractProject.class);
+    when(project.getFullName()).thenReturn(name);
+    return project;
+  }
+
+  private static AbstractBuild<?, ?> mockBuild(AbstractProject project, String nodeName) {
+    AbstractBuild build = mock(AbstractBuild.class);
+    when(build.getProject()).thenReturn(project);
+    when(build.getBuiltOnStr()).thenReturn(nodeName);
+    return build;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClassDataSharingArchiveTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void shouldCreateArchiveOnceThenUseIt() throws Exception {
+    File home = temp.newFolder("runner");
+    FileUtils.write(new File(home, "lib/sonar-runner-dist.jar"), "");
+    String jdk = newJdk("jdk").getPath();
+
+    String creation = new ClassDataSharingArchive(jdk, null).invoke(home, null);
+    assertThat(creation).startsWith("-XX:+IgnoreUnrecognizedVMOptions -XX:ArchiveClassesAtExit=");
+    String archive = creation.substring(creation.indexOf('=') + 1);
+    assertThat(new File(archive).getParentFile()).isEqualTo(new File(home, "cds"));
+
+    // being created by the first analysis
+    assertThat(new ClassDataSharingArchive(jdk, null).invoke(home, null)).isNull();
+
+    FileUtils.write(new File(archive), "");
+    assertThat(new ClassDataSharingArchive(jdk, null).invoke(home, null))
+      .isEqualTo("-XX:+IgnoreUnrecognizedVMOptions -Xshare:auto -XX:SharedArchiveFile=" + archive);
+  }
+
+  @Test
+  public void shouldCreateNewArchiveWhenJdkOrRunnerChanges() throws Exception {
+    File home = temp.newFolder("runner");
+    File library = new File(home, "lib/sonar-runner-dist.jar");
+    FileUtils.write(library, "");
+    File jdk = newJdk("jdk");
+
+    String creation = new ClassDataSharingArchive(jdk.getPath(), null).invoke(home, null);
+    String otherJdk = new ClassDataSharingArchive(newJdk("other-jdk").getPath(), null).invoke(home, null);
+    assertThat(otherJdk).startsWith("-XX:+IgnoreUnrecognizedVMOptions -XX:ArchiveClassesAtExit=").isNotEqualTo(creation);
+
+    library.setLastModified(library.lastModified() - 10000);
+    String otherRunner = new ClassDataSharingArchive(jdk.getPath(), null).invoke(home, null);
+    assertThat(otherRunner).startsWith("-XX:+IgnoreUnrecognizedVMOptions -XX:ArchiveClassesAtExit=").isNotEqualTo(creation);
+  }
+
+  @Test
+  public void shouldCreateNewArchiveWhenJdkIsUpgradedInPlace() throws Exception {
+    File home = temp.newFolder("runner");
+    File jdk = newJdk("jdk");
+
+    String creation = new ClassDataSharingArchive(jdk.getPath(), null).invoke(home, null);
+    File release = new File(jdk, "release");
+    FileUtils.write(release, "JAVA_VERSION=\"11.0.10\"");
+    release.setLastModified(release.lastModified() + 10000);
+    String upgrade = new ClassDataSharingArchive(jdk.getPath(), null).invoke(home, null);
+    assertThat(upgrade).startsWith("-XX:+IgnoreUnrecognizedVMOptions -XX:ArchiveClassesAtExit=").isNotEqualTo(creation);
+  }
+
+  @Test
+  public void shouldLookForJavaInPath() throws Exception {
+    File home = temp.newFolder("runner");
+    File jdk = newJdk("jdk");
+    String creation = new ClassDataSharingArchive(jdk.getPath(), null).invoke(home, null);
+    String archive = creation.substring(creation.indexOf('=') + 1);
+    FileUtils.write(new File(archive), "");
+
+    // the same JDK whatever the other entries of the PATH
+    String sharing = "-XX:+IgnoreUnrecognizedVMOptions -Xshare:auto -XX:SharedArchiveFile=" + archive;
+    String path = temp.newFolder("tools").getPath() + File.pathSeparator + new File(jdk, "bin").getPath();
+    assertThat(new ClassDataSharingArchive(null, path).invoke(home, null)).isEqualTo(sharing);
+    String otherPath = new File(jdk, "bin").getPath() + File.pathSeparator + temp.newFolder("other-tools").getPath();
+    assertThat(new ClassDataSharingArchive(null, otherPath).invoke(home, null)).isEqualTo(sharing);
+
+    // no java
+    assertThat(new ClassDataSharingArchive(null, temp.newFolder("no-java").getPath()).invoke(home, null)).isNull();
+  }
+
+  private File newJdk(String name) throws Exception {
+    File jdk = temp.newFolder(name);
+    FileUtils.write(new File(jdk, "release"), "JAVA_VERSION=\"11.0.1\"");
+    File java = new File(jdk, File.separatorChar == '\\' ? "bin/java.exe" : "bin/java");
+    FileUtils.write(java, "");
+    return jdk.getCanonicalFile();
+  }
+}
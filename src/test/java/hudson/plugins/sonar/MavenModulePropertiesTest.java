@@ -0,0 +1,112 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.FilePath;
+import hudson.maven.MavenModule;
+import hudson.maven.MavenModuleSet;
+import hudson.maven.MavenModuleSetBuild;
+import hudson.maven.ModuleName;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MavenModulePropertiesTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void shouldDeriveModulesFromMavenModel() throws Exception {
+    File workspace = temp.newFolder();
+    new File(workspace, "core/src/main/java").mkdirs();
+    new File(workspace, "core/src/test/java").mkdirs();
+    new File(workspace, "core/target/classes").mkdirs();
+    new File(workspace, "web/src/main/java").mkdirs();
+    new File(workspace, "disabled/src/main/java").mkdirs();
+
+    MavenModule root = mockModule("parent", "", false);
+    MavenModule core = mockModule("core", "core", false);
+    MavenModule web = mockModule("web", "web", false);
+    MavenModule disabled = mockModule("disabled", "disabled", true);
+    MavenModuleSet project = mock(MavenModuleSet.class);
+    when(project.getRootModule()).thenReturn(root);
+    when(project.getModules()).thenReturn(Arrays.asList(root, core, web, disabled));
+    MavenModuleSetBuild build = mock(MavenModuleSetBuild.class);
+    when(build.getProject()).thenReturn(project);
+
+    Properties properties = MavenModuleProperties.of(build, new FilePath(workspace), "feature");
+
+    assertThat(properties.getProperty("sonar.projectKey")).isEqualTo("org.example:parent");
+    assertThat(properties.getProperty("sonar.projectVersion")).isEqualTo("1.0");
+    assertThat(properties.getProperty("sonar.branch")).isEqualTo("feature");
+    assertThat(properties.getProperty("sonar.sources")).isNull();
+    assertThat(properties.getProperty("sonar.modules")).isEqualTo("core,web");
+    assertThat(properties.getProperty("core.sonar.projectKey")).isEqualTo("org.example:core");
+    assertThat(properties.getProperty("core.sonar.projectBaseDir")).isEqualTo(new FilePath(workspace).child("core").getRemote());
+    assertThat(properties.getProperty("core.sonar.sources")).isEqualTo("src/main/java");
+    assertThat(properties.getProperty("core.sonar.tests")).isEqualTo("src/test/java");
+    assertThat(properties.getProperty("core.sonar.binaries")).isEqualTo("target/classes");
+    assertThat(properties.getProperty("web.sonar.sources")).isEqualTo("src/main/java");
+    assertThat(properties.getProperty("web.sonar.tests")).isNull();
+    assertThat(properties.getProperty("disabled.sonar.sources")).isNull();
+  }
+
+  @Test
+  public void shouldAddSystemProperties() {
+    Properties properties = new Properties();
+    MavenModuleProperties.addSystemProperties(properties, "-Dsonar.language=java -Pprofile -Dsonar.verbose -X");
+    assertThat(properties).hasSize(2);
+    assertThat(properties.getProperty("sonar.language")).isEqualTo("java");
+    assertThat(properties.getProperty("sonar.verbose")).isEqualTo("true");
+  }
+
+  private static MavenModule mockModule(String artifactId, String relativePath, boolean disabled) {
+    MavenModule module = mock(MavenModule.class);
+    when(module.getModuleName()).thenReturn(new ModuleName("org.example", artifactId));
+    when(module.getRelativePath()).thenReturn(relativePath);
+    when(module.getVersion()).thenReturn("1.0");
+    when(module.getDisplayName()).thenReturn(artifactId);
+    when(module.isDisabled()).thenReturn(disabled);
+    return module;
+  }
+}
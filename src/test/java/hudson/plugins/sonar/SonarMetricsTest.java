@@ -0,0 +1,129 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SonarMetricsTest {
+
+  @Test
+  public void testStripedCounterSumsConcurrentUpdates() throws InterruptedException {
+    final SonarMetrics.StripedCounter counter = new SonarMetrics.StripedCounter();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 8; i++) {
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 1000; j++) {
+            counter.add(1);
+          }
+        }
+      };
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(counter.get()).isEqualTo(8000);
+  }
+
+  @Test
+  public void testHistogramBucketsAreCumulative() {
+    SonarMetrics.Histogram histogram = new SonarMetrics.Histogram();
+    histogram.observe(5);
+    histogram.observe(2000);
+    histogram.observe(10000000);
+
+    StringWriter writer = new StringWriter();
+    histogram.write(new PrintWriter(writer), "h", "a=\"b\"");
+
+    assertThat(writer.toString())
+      .contains("h_bucket{a=\"b\",le=\"0.01\"} 1\n")
+      .contains("h_bucket{a=\"b\",le=\"1.0\"} 1\n")
+      .contains("h_bucket{a=\"b\",le=\"5.0\"} 2\n")
+      .contains("h_bucket{a=\"b\",le=\"+Inf\"} 3\n")
+      .contains("h_sum{a=\"b\"} 10002.005\n")
+      .contains("h_count{a=\"b\"} 3\n");
+  }
+
+  @Test
+  public void testRecordedAnalysesAreExposed() {
+    AnalysisTimings timings = new AnalysisTimings();
+    timings.add(AnalysisTimings.Phase.LAUNCH, 300);
+    SonarMetrics.analysisQueued("metrics \"test\"", SonarMetrics.KIND_RUNNER, 20);
+    SonarMetrics.analysisStarted("metrics \"test\"", SonarMetrics.KIND_RUNNER);
+    SonarMetrics.analysisCompleted("metrics \"test\"", SonarMetrics.KIND_RUNNER, timings, false);
+    SonarMetrics.analysisSkipped("metrics \"test\"", SonarMetrics.getSkipReason(Messages.SonarPublisher_Superseded()));
+
+    StringWriter writer = new StringWriter();
+    SonarMetrics.write(new PrintWriter(writer));
+
+    assertThat(writer.toString())
+      .contains("# TYPE sonar_analyses_failed_total counter\n")
+      .contains("sonar_analyses_started_total{installation=\"metrics \\\"test\\\"\",kind=\"runner\"} 1\n")
+      .contains("sonar_analyses_failed_total{installation=\"metrics \\\"test\\\"\",kind=\"runner\"} 1\n")
+      .contains("sonar_analyses_skipped_total{installation=\"metrics \\\"test\\\"\",reason=\"superseded\"} 1\n")
+      .contains("sonar_launch_seconds_bucket{installation=\"metrics \\\"test\\\"\",kind=\"runner\",le=\"0.5\"} 1\n")
+      .contains("sonar_throttle_wait_seconds_bucket{installation=\"metrics \\\"test\\\"\",kind=\"runner\",le=\"0.05\"} 1\n");
+  }
+
+  @Test
+  public void testQueueWaitOfSkippedAnalysesIsExposed() {
+    SonarMetrics.analysisQueued("metrics skipped", SonarMetrics.KIND_MAVEN, 2000);
+    SonarMetrics.analysisSkipped("metrics skipped", "reused");
+
+    StringWriter writer = new StringWriter();
+    SonarMetrics.write(new PrintWriter(writer));
+
+    assertThat(writer.toString())
+      .contains("sonar_throttle_wait_seconds_count{installation=\"metrics skipped\",kind=\"maven\"} 1\n")
+      .contains("sonar_analyses_skipped_total{installation=\"metrics skipped\",reason=\"reused\"} 1\n")
+      .doesNotContain("sonar_analyses_started_total{installation=\"metrics skipped\"");
+  }
+
+  @Test
+  public void testSkipReasons() {
+    assertThat(SonarMetrics.getSkipReason(Messages.SonarPublisher_IgnoredChanges())).isEqualTo("ignored_changes");
+    assertThat(SonarMetrics.getSkipReason(Messages.Skipping_Sonar_analysis())).isEqualTo("trigger");
+    assertThat(SonarMetrics.getSkipReason(Messages.SonarPublisher_BadBuildStatus("FAILURE"))).isEqualTo("build_result");
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Descriptor;
+import hudson.model.Result;
+import hudson.model.Saveable;
+import hudson.tasks.Publisher;
+import hudson.util.DescribableList;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SonarProjectRecordTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private AbstractProject<?, ?> project;
+
+  @Before
+  public void setUp() throws IOException {
+    project = mock(AbstractProject.class);
+    when(project.getFullName()).thenReturn(temp.getRoot().getAbsolutePath());
+    when(project.getRootDir()).thenReturn(temp.newFolder());
+  }
+
+  @Test
+  public void shouldInitializeFromHistoryOnlyOnce() {
+    AbstractBuild build = mockBuild(1, Result.SUCCESS, "http://foo");
+    when(project.getLastSuccessfulBuild()).thenReturn(build);
+
+    assertThat(SonarProjectRecord.getLastSonarUrl(project)).isEqualTo("http://foo");
+    assertThat(SonarProjectRecord.getLastSonarUrl(project)).isEqualTo("http://foo");
+    verify(project).getLastSuccessfulBuild();
+  }
+
+  @Test
+  public void shouldBeReloadedFromDisk() {
+    when(project.getLastSuccessfulBuild()).thenReturn(null);
+    SonarProjectRecord.get(project).onCompleted(mockBuild(2, Result.SUCCESS, "http://bar"));
+
+    SonarProjectRecord.invalidate(project.getFullName());
+    AbstractBuild build = mockBuild(1, Result.SUCCESS, "http://foo");
+    when(project.getLastSuccessfulBuild()).thenReturn(build);
+
+    assertThat(SonarProjectRecord.getLastSonarUrl(project)).isEqualTo("http://bar");
+  }
+
+  @Test
+  public void shouldTrackCompletedBuilds() {
+    SonarProjectRecord record = SonarProjectRecord.get(project);
+    assertThat(record.getUrl()).isNull();
+
+    record.onCompleted(mockBuild(1, Result.UNSTABLE, "http://unstable"));
+    assertThat(record.getUrl()).isEqualTo("http://unstable");
+
+    record.onCompleted(mockBuild(2, Result.FAILURE, "http://failure"));
+    assertThat(record.getUrl()).isEqualTo("http://unstable");
+
+    record.onCompleted(mockBuild(3, Result.SUCCESS, "http://success"));
+    assertThat(record.getUrl()).isEqualTo("http://success");
+
+    // last successful build without analysis, fallback to last unstable one
+    record.onCompleted(mockBuild(4, Result.SUCCESS, null));
+    assertThat(record.getUrl()).isEqualTo("http://unstable");
+  }
+
+  @Test
+  public void shouldReferenceRecordedBuilds() {
+    SonarProjectRecord record = SonarProjectRecord.get(project);
+    AbstractBuild build = mockBuild(5, Result.SUCCESS, "http://foo");
+    record.onCompleted(build);
+
+    assertThat(record.references(build)).isTrue();
+    assertThat(record.references(mockBuild(4, Result.SUCCESS, "http://foo"))).isFalse();
+  }
+
+  @Test
+  public void shouldRememberAnalysesByFingerprint() {
+    AbstractBuild build = mockBuild(7, Result.SUCCESS, "http://foo");
+    when(build.getProject()).thenReturn(project);
+    assertThat(SonarProjectRecord.findAnalysis(project, "fingerprint")).isNull();
+
+    SonarProjectRecord.recordAnalysis(build, "fingerprint", "http://foo");
+    SonarProjectRecord.invalidate(project.getFullName());
+
+    SonarProjectRecord.AnalyzedBuild analyzed = SonarProjectRecord.findAnalysis(project, "fingerprint");
+    assertThat(analyzed.getNumber()).isEqualTo(7);
+    assertThat(analyzed.getUrl()).isEqualTo("http://foo");
+
+    assertThat(SonarProjectRecord.get(project).forgetAnalyses(build)).isTrue();
+    assertThat(SonarProjectRecord.findAnalysis(project, "fingerprint")).isNull();
+  }
+
+  @Test
+  public void shouldTakeAsyncAnalysisIntoAccount() {
+    AbstractBuild build = mockBuild(3, Result.SUCCESS, null);
+    when(build.getProject()).thenReturn(project);
+    SonarProjectRecord.get(project).onCompleted(build);
+    assertThat(SonarProjectRecord.getLastSonarUrl(project)).isNull();
+
+    when(build.getAction(BuildSonarAction.class)).thenReturn(new BuildSonarAction("http://async"));
+    SonarProjectRecord.recordAsyncAnalysis(build);
+    assertThat(SonarProjectRecord.getLastSonarUrl(project)).isEqualTo("http://async");
+  }
+
+  @Test
+  public void shouldOnlyTrackBuildsOfAnalyzedProjects() {
+    SonarProjectRecord.RunListenerImpl listener = new SonarProjectRecord.RunListenerImpl();
+    File recordFile = new File(project.getRootDir(), SonarProjectRecord.class.getName() + ".xml");
+    DescribableList<Publisher, Descriptor<Publisher>> publishers = new DescribableList<Publisher, Descriptor<Publisher>>(Saveable.NOOP);
+    when(project.getPublishersList()).thenReturn(publishers);
+    AbstractBuild build = mockBuild(1, Result.SUCCESS, null);
+    when(build.getProject()).thenReturn(project);
+
+    listener.onCompleted(build, null);
+    listener.onDeleted(build);
+    assertThat(recordFile).doesNotExist();
+
+    publishers.add(mock(SonarPublisher.class));
+    listener.onCompleted(build, null);
+    assertThat(recordFile).exists();
+  }
+
+  @Test
+  public void shouldTrackAnalyzedBuildsOfOtherProjects() {
+    SonarProjectRecord.RunListenerImpl listener = new SonarProjectRecord.RunListenerImpl();
+    when(project.getPublishersList()).thenReturn(new DescribableList<Publisher, Descriptor<Publisher>>(Saveable.NOOP));
+    AbstractBuild build = mockBuild(1, Result.SUCCESS, "http://foo");
+    when(build.getProject()).thenReturn(project);
+
+    listener.onCompleted(build, null);
+    assertThat(SonarProjectRecord.getLastSonarUrl(project)).isEqualTo("http://foo");
+  }
+
+  @Test
+  public void shouldNotBeCreatedForProjectWithoutRootDir() {
+    AbstractProject<?, ?> transientProject = mock(AbstractProject.class);
+    assertThat(SonarProjectRecord.get(transientProject)).isNull();
+    assertThat(SonarProjectRecord.getLastSonarUrl(transientProject)).isNull();
+  }
+
+  private static AbstractBuild mockBuild(int number, Result result, String url) {
+    AbstractBuild build = mock(AbstractBuild.class);
+    when(build.getNumber()).thenReturn(number);
+    when(build.getResult()).thenReturn(result);
+    when(build.getAction(BuildSonarAction.class)).thenReturn(url != null ? new BuildSonarAction(url) : null);
+    return build;
+  }
+}
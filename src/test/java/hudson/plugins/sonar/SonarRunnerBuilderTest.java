@@ -55,6 +55,8 @@ import org.mockito.stubbing.Answer;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
@@ -143,6 +145,35 @@ public class SonarRunnerBuilderTest {
       .contains("-Dsonar.password=sonarpassword");
   }
 
+  @Test
+  public void shouldWritePropertiesFileInsteadOfArguments() throws IOException, InterruptedException {
+    File projectSettings = new File(moduleDir, "myCustomProjectSettings.properties");
+    FileUtils.writeStringToFile(projectSettings, "sonar.projectKey=key\nsonar.sources=src\n");
+    SonarInstallation installation = mock(SonarInstallation.class);
+    when(installation.getServerUrl()).thenReturn("hostUrl");
+    when(installation.getSonarLogin()).thenReturn("sonarlogin");
+    when(installation.getSonarPassword()).thenReturn("sonarpassword");
+
+    Properties analysisProperties = new Properties();
+    SonarRunnerBuilder builder = new SonarRunnerBuilder(null, null, "myCustomProjectSettings.properties", "sonar.sources=src/main/java", null, null, null, true);
+    builder.populateConfiguration(new ExtendedArgumentListBuilder(args, false, analysisProperties), build, listener, env, installation);
+    assertThat(args.toStringWithQuote()).isEmpty();
+
+    FilePath propertiesFile = builder.writePropertiesFile(build, analysisProperties);
+    Properties written = new Properties();
+    InputStream in = propertiesFile.read();
+    try {
+      written.load(in);
+    } finally {
+      in.close();
+    }
+    assertThat(written.getProperty("sonar.projectKey")).isEqualTo("key");
+    assertThat(written.getProperty("sonar.sources")).isEqualTo("src/main/java");
+    assertThat(written.getProperty("sonar.password")).isEqualTo("sonarpassword");
+    assertThat(written.getProperty("sonar.projectBaseDir")).isEqualTo(moduleDir.getPath());
+    assertThat(written.getProperty("project.settings")).isNull();
+  }
+
   /**
    * It is not possible to mock AbstractBuild because interesting methods like getWorkspace are final so I am creating a custom subclass
    * @author julien
@@ -0,0 +1,88 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar;
+
+import hudson.model.Node;
+import hudson.tools.ToolProperty;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SonarRunnerInstallationTest {
+
+  @After
+  public void cleanCache() {
+    SonarRunnerInstallation.invalidateExecutables("node1");
+    SonarRunnerInstallation.invalidateExecutables("node2");
+  }
+
+  @Test
+  public void shouldCacheExecutableByNodeAndHome() {
+    Node node1 = mockNode("node1");
+    Node node2 = mockNode("node2");
+    SonarRunnerInstallation runner = new SonarRunnerInstallation("runner", "/opt/runner", Collections.<ToolProperty<?>>emptyList());
+
+    assertThat(runner.getCachedExecutable(node1)).isNull();
+    runner.cacheExecutable(node1, "/opt/runner/bin/sonar-runner");
+
+    assertThat(runner.getCachedExecutable(node1)).isEqualTo("/opt/runner/bin/sonar-runner");
+    assertThat(runner.getCachedExecutable(node2)).isNull();
+    assertThat(new SonarRunnerInstallation("runner", "/opt/other", Collections.<ToolProperty<?>>emptyList()).getCachedExecutable(node1)).isNull();
+  }
+
+  @Test
+  public void shouldInvalidateExecutablesOfNode() {
+    Node node1 = mockNode("node1");
+    Node node2 = mockNode("node2");
+    SonarRunnerInstallation runner = new SonarRunnerInstallation("runner", "/opt/runner", Collections.<ToolProperty<?>>emptyList());
+    runner.cacheExecutable(node1, "/opt/runner/bin/sonar-runner");
+    runner.cacheExecutable(node2, "/opt/runner/bin/sonar-runner");
+
+    SonarRunnerInstallation.invalidateExecutables("node1");
+
+    assertThat(runner.getCachedExecutable(node1)).isNull();
+    assertThat(runner.getCachedExecutable(node2)).isEqualTo("/opt/runner/bin/sonar-runner");
+  }
+
+  private static Node mockNode(String name) {
+    Node node = mock(Node.class);
+    when(node.getNodeName()).thenReturn(name);
+    return node;
+  }
+}
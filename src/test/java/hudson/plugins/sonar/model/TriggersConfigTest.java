@@ -34,18 +34,27 @@
 package hudson.plugins.sonar.model;
 
 import hudson.EnvVars;
+import hudson.FilePath;
 import hudson.model.BuildListener;
 import hudson.model.Result;
 import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
 import hudson.model.Cause;
+import hudson.scm.ChangeLogSet;
 import hudson.triggers.SCMTrigger;
 import hudson.triggers.TimerTrigger;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -154,6 +163,101 @@ public class TriggersConfigTest {
     assertThat(triggers.isSkipSonar(build, listener)).isNotNull();
   }
 
+  @Test
+  public void superseded_build() throws IOException, InterruptedException {
+    AbstractBuild build = mockBuildWithCauses(new TriggersConfig.SonarCause());
+    AbstractBuild newerBuild = mock(AbstractBuild.class);
+    AbstractProject project = mock(AbstractProject.class);
+    when(build.getProject()).thenReturn(project);
+    when(build.getNumber()).thenReturn(101);
+    when(newerBuild.getNumber()).thenReturn(102);
+    when(project.getLastBuild()).thenReturn(build);
+    assertThat(triggers.isSkipSonar(build, listener)).isNull();
+
+    when(project.isInQueue()).thenReturn(true);
+    assertThat(triggers.isSkipSonar(build, listener)).isNull();
+    triggers.setSkipSuperseded(true);
+    assertThat(triggers.isSkipSonar(build, listener)).isNotNull();
+
+    when(project.isInQueue()).thenReturn(false);
+    assertThat(triggers.isSuperseded(build)).isNull();
+    when(project.getLastBuild()).thenReturn(newerBuild);
+    when(newerBuild.isBuilding()).thenReturn(true);
+    assertThat(triggers.isSuperseded(build)).isNotNull();
+  }
+
+  @Test
+  public void not_superseded_by_finished_builds() {
+    AbstractBuild build = mockBuildWithCauses(new TriggersConfig.SonarCause());
+    AbstractBuild runningBuild = mock(AbstractBuild.class);
+    AbstractBuild failedBuild = mock(AbstractBuild.class);
+    AbstractProject project = mock(AbstractProject.class);
+    when(build.getProject()).thenReturn(project);
+    when(build.getNumber()).thenReturn(101);
+    when(runningBuild.getNumber()).thenReturn(102);
+    when(runningBuild.getPreviousBuild()).thenReturn(build);
+    when(failedBuild.getNumber()).thenReturn(103);
+    when(failedBuild.getPreviousBuild()).thenReturn(runningBuild);
+    when(project.getLastBuild()).thenReturn(failedBuild);
+    triggers.setSkipSuperseded(true);
+
+    when(runningBuild.isBuilding()).thenReturn(true);
+    assertThat(triggers.isSuperseded(build)).isNotNull();
+    when(runningBuild.isBuilding()).thenReturn(false);
+    assertThat(triggers.isSuperseded(build)).isNull();
+  }
+
+  @Test
+  public void ignored_changes() {
+    AbstractBuild build = mockBuildWithChanges("README.md", "docs/index.html");
+    triggers.setIgnoredChanges("**/*.md,\ndocs/**");
+    assertThat(triggers.isSkipChanges(build, null, Collections.<String>emptyList())).isNull();
+    triggers.setSkipIgnoredChanges(true);
+    assertThat(triggers.isSkipChanges(build, null, Collections.<String>emptyList())).isNotNull();
+
+    build = mockBuildWithChanges("README.md", "src/main/java/Foo.java");
+    assertThat(triggers.isSkipChanges(build, null, Collections.<String>emptyList())).isNull();
+    assertThat(triggers.isSkipChanges(build, null, Arrays.asList("src/main/java"))).isNull();
+    assertThat(triggers.isSkipChanges(build, null, Arrays.asList("module/src/main/java", "src/test/java"))).isNotNull();
+    assertThat(triggers.isSkipChanges(build, null, Arrays.asList("module/src/main/java", "."))).isNull();
+
+    build = mockBuildWithChanges();
+    assertThat(triggers.isSkipChanges(build, null, Arrays.asList("src/test/java"))).isNull();
+  }
+
+  @Test
+  public void ignored_changes_with_absolute_analyzed_paths() {
+    triggers.setSkipIgnoredChanges(true);
+    AbstractBuild build = mockBuildWithChanges("src/main/java/Foo.java");
+    File workspace = new File("/jenkins/workspace/job").getAbsoluteFile();
+    FilePath ws = new FilePath(workspace);
+    assertThat(triggers.isSkipChanges(build, ws, Arrays.asList(new File(workspace, "src/main/java").getPath()))).isNull();
+    assertThat(triggers.isSkipChanges(build, ws, Arrays.asList(new File(workspace, "src/test/java").getPath()))).isNotNull();
+    assertThat(triggers.isSkipChanges(build, ws, Arrays.asList(new File(workspace, "src/test/java").getPath() + "/"))).isNotNull();
+    assertThat(triggers.isSkipChanges(build, ws, Arrays.asList(workspace.getPath()))).isNull();
+
+    // can't tell whether changes affect paths out of the workspace
+    assertThat(triggers.isSkipChanges(build, ws, Arrays.asList(new File("/shared/src/test/java").getAbsolutePath()))).isNull();
+    assertThat(triggers.isSkipChanges(build, ws, Arrays.asList(new File(workspace.getPath() + "2", "src/test/java").getPath()))).isNull();
+    assertThat(triggers.isSkipChanges(build, null, Arrays.asList(new File(workspace, "src/test/java").getPath()))).isNull();
+  }
+
+
+  private static AbstractBuild mockBuildWithChanges(String... paths) {
+    ChangeLogSet.Entry entry = mock(ChangeLogSet.Entry.class);
+    when(entry.getAffectedPaths()).thenReturn(Arrays.asList(paths));
+    final List<ChangeLogSet.Entry> entries = paths.length == 0 ? Collections.<ChangeLogSet.Entry>emptyList() : Arrays.asList(entry);
+    ChangeLogSet changeSet = mock(ChangeLogSet.class);
+    when(changeSet.iterator()).thenAnswer(new Answer<Iterator<ChangeLogSet.Entry>>() {
+      public Iterator<ChangeLogSet.Entry> answer(InvocationOnMock invocation) {
+        return entries.iterator();
+      }
+    });
+    AbstractBuild build = mock(AbstractBuild.class);
+    when(build.getChangeSet()).thenReturn(changeSet);
+    return build;
+  }
+
   private static AbstractBuild<?, ?> mockBuildWithCauses(Cause... causes) {
     AbstractBuild<?, ?> build = mock(AbstractBuild.class);
     when(build.getCauses()).thenReturn(Arrays.asList(causes));
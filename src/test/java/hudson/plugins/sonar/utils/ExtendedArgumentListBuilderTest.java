@@ -40,6 +40,7 @@ import org.junit.runners.Parameterized;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Properties;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -111,4 +112,17 @@ public class ExtendedArgumentListBuilderTest {
       assertThat(original.toStringWithQuote(), is("-Dkey=value \"-Damp=&\""));
     }
   }
+
+  @Test
+  public void collectedInProperties() {
+    Properties properties = new Properties();
+    builder = new ExtendedArgumentListBuilder(original, builder.isUnix(), properties);
+    builder.append("key", " value ");
+    builder.appendMasked("masked", "&");
+    builder.append("empty", "");
+    assertThat(original.toStringWithQuote(), is(""));
+    assertThat(properties.size(), is(2));
+    assertThat(properties.getProperty("key"), is("value"));
+    assertThat(properties.getProperty("masked"), is("&"));
+  }
 }
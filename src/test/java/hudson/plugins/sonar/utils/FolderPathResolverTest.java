@@ -78,4 +78,12 @@ public class FolderPathResolverTest {
             assertTrue("Not right ending: " + path, path.endsWith("main" + File.separator + "java"));
         }
     }
+
+    @Test
+    public void testDoResolvePathInParallel() throws IOException, InterruptedException {
+        Set<String> sequential = pathResolver.doResolvePath(workspace, "**/main/java");
+        pathResolver.setParallelism(4);
+        assertEquals(4, pathResolver.getParallelism());
+        assertEquals(sequential, pathResolver.doResolvePath(workspace, "**/main/java"));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import hudson.FilePath;
+import hudson.model.AbstractBuild;
+import hudson.model.TaskListener;
+import hudson.plugins.sonar.AnalysisMemoryAction;
+import hudson.plugins.sonar.SonarInstallation;
+import hudson.util.StreamTaskListener;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HeapSizingTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void shouldParseJava8GcLog() throws Exception {
+    String log = "Java HotSpot(TM) 64-Bit Server VM (25.60-b23) for linux-amd64 JRE (1.8.0_60-b27)\n"
+      + "0.512: [GC (Allocation Failure)  65536K->5678K(251392K), 0.0120000 secs]\n"
+      + "2.048: [Full GC (Ergonomics)  131072K->98304K(502784K), 0.2500000 secs]\n";
+    long[] stats = HeapSizing.parse(new BufferedReader(new StringReader(log)));
+    assertThat(stats[0]).isEqualTo(131072);
+    assertThat(stats[1]).isEqualTo(502784);
+    assertThat(stats[2]).isEqualTo(262);
+    assertThat(stats[3]).isEqualTo(98304);
+  }
+
+  @Test
+  public void shouldIgnoreGenerationsOfDetailedGcLog() throws Exception {
+    String log = "1.024: [GC (Allocation Failure) [PSYoungGen: 65536K->5000K(76288K)] 65536K->5678K(251392K), 0.0100000 secs] "
+      + "[Times: user=0.02 sys=0.00, real=0.01 secs]\n"
+      + "2.345: [Full GC (Ergonomics) [PSYoungGen: 10000K->0K(76288K)] [ParOldGen: 90000K->80000K(175104K)] 100000K->80000K(251392K), "
+      + "[Metaspace: 30000K->30000K(1079296K)], 0.0500000 secs] [Times: user=0.10 sys=0.00, real=0.05 secs]\n";
+    long[] stats = HeapSizing.parse(new BufferedReader(new StringReader(log)));
+    assertThat(stats[0]).isEqualTo(100000);
+    assertThat(stats[1]).isEqualTo(251392);
+    assertThat(stats[2]).isEqualTo(60);
+    assertThat(stats[3]).isEqualTo(80000);
+  }
+
+  @Test
+  public void shouldParseUnifiedGcLog() throws Exception {
+    String log = "[0.010s][info][gc] Using G1\n"
+      + "[0.512s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 4.500ms\n"
+      + "[3.001s][info][gc] GC(1) Pause Full (G1 Compaction Pause) 1G->600M(1G) 95.5ms\n";
+    long[] stats = HeapSizing.parse(new BufferedReader(new StringReader(log)));
+    assertThat(stats[0]).isEqualTo(1024 * 1024);
+    assertThat(stats[1]).isEqualTo(1024 * 1024);
+    assertThat(stats[2]).isEqualTo(99);
+    assertThat(stats[3]).isEqualTo(600 * 1024);
+  }
+
+  @Test
+  public void shouldUseAnyCollectionWithoutFullCollection() throws Exception {
+    String log = "[0.512s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 4.500ms\n"
+      + "[0.812s][info][gc] GC(1) Pause Young (Normal) (G1 Evacuation Pause) 200M->120M(256M) 6.000ms\n";
+    long[] stats = HeapSizing.parse(new BufferedReader(new StringReader(log)));
+    assertThat(stats[3]).isEqualTo(120 * 1024);
+  }
+
+  @Test
+  public void shouldRecommendHeapWithinBounds() {
+    // healthy analysis: 1.5 times the live heap, rounded to 64 MB
+    assertThat(HeapSizing.recommend(new AnalysisMemoryAction(0, 450, 300, 512, 1000, 60000, true), 256, 4096)).isEqualTo(512);
+    assertThat(HeapSizing.recommend(new AnalysisMemoryAction(0, 400, 100, 512, 1000, 60000, true), 256, 4096)).isEqualTo(256);
+    // too much time in GC: twice the heap
+    assertThat(HeapSizing.recommend(new AnalysisMemoryAction(1024, 1000, 900, 1024, 30000, 60000, true), 256, 4096)).isEqualTo(2048);
+    // probably out of memory
+    assertThat(HeapSizing.recommend(new AnalysisMemoryAction(1024, 1000, 900, 1024, 1000, 60000, false), 256, 1536)).isEqualTo(1536);
+  }
+
+  @Test
+  public void shouldNotSizeHeapFromEmptyGcLog() throws Exception {
+    long[] stats = HeapSizing.parse(new BufferedReader(new StringReader("Java HotSpot(TM) 64-Bit Server VM (25.60-b23) for linux-amd64 JRE\n")));
+    assertThat(stats).containsOnly(0L);
+    AnalysisMemoryAction empty = new AnalysisMemoryAction(0, 0, 0, 0, 0, 60000, false);
+    assertThat(empty.hasCollections()).isFalse();
+    assertThat(empty.isMemoryPressure()).isFalse();
+    // never a heap the JVM can't start with
+    assertThat(HeapSizing.recommend(empty, 0, 4096)).isEqualTo(256);
+    assertThat(HeapSizing.recommend(new AnalysisMemoryAction(0, 100, 20, 128, 10, 60000, true), 0, 4096)).isEqualTo(256);
+  }
+
+  @Test
+  public void shouldSkipRecordsWithoutCollections() throws Exception {
+    SonarInstallation installation = mock(SonarInstallation.class);
+    when(installation.getMaxAnalysisHeap()).thenReturn(4096);
+    AbstractBuild olderBuild = mock(AbstractBuild.class);
+    when(olderBuild.getNumber()).thenReturn(1);
+    when(olderBuild.getAction(AnalysisMemoryAction.class)).thenReturn(new AnalysisMemoryAction(0, 900, 600, 1024, 1000, 60000, true));
+    AbstractBuild previousBuild = mock(AbstractBuild.class);
+    when(previousBuild.getNumber()).thenReturn(2);
+    when(previousBuild.getAction(AnalysisMemoryAction.class)).thenReturn(new AnalysisMemoryAction(960, 0, 0, 0, 0, 60000, true));
+    when(previousBuild.getPreviousBuild()).thenReturn(olderBuild);
+    AbstractBuild build = mock(AbstractBuild.class);
+    when(build.getNumber()).thenReturn(3);
+    when(build.getPreviousBuild()).thenReturn(previousBuild);
+
+    FilePath dir = new FilePath(temp.getRoot());
+    TaskListener listener = new StreamTaskListener(new ByteArrayOutputStream());
+    assertThat(HeapSizing.of(installation, build).apply(null, dir, listener)).endsWith(" -Xmx960m");
+
+    when(previousBuild.getPreviousBuild()).thenReturn(null);
+    assertThat(HeapSizing.of(installation, build).apply(null, dir, listener)).doesNotContain("-Xmx");
+  }
+
+  @Test
+  public void shouldKeepHeapStableForSteadyLiveSet() {
+    // the JVM fills whatever heap it is given before collecting, only 600 MB survive the collections
+    int heap = 1024;
+    for (int i = 0; i < 5; i++) {
+      AnalysisMemoryAction previous = new AnalysisMemoryAction(heap, heap, 600, heap, 1000, 60000, true);
+      heap = HeapSizing.recommend(previous, 256, 8192);
+      assertThat(heap).isEqualTo(960);
+    }
+  }
+}
@@ -190,4 +190,82 @@ public class PathResolverOperatorTest {
         assertEquals("", result.getProperty(SONAR_JAVA_LIBRARIES));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testResolvePathsInBatch() throws IOException, InterruptedException {
+        Properties input = new Properties();
+        input.put("untouchedKey", "untouchedValue");
+        input.put(SONAR_SOURCES, "**/main/java, **/test/java");
+        input.put(SONAR_TEST, " ");
+        input.put(SONAR_JAVA_LIBRARIES_INCLUDE, "**/hudson/plugin/");
+
+        PathResolverOperator operator = new PathResolverOperator(new FilePath(testBaseDir));
+        assertTrue(operator.isBatchMode());
+        Properties batchResult = operator.resolvePaths(input);
+
+        assertEquals("untouchedValue", batchResult.getProperty("untouchedKey"));
+        assertEquals(" ", batchResult.getProperty(SONAR_TEST));
+        assertEquals(2, batchResult.getProperty(SONAR_SOURCES).split(",").length);
+        assertTrue(batchResult.getProperty(SONAR_JAVA_LIBRARIES).endsWith("plugin.jar"));
+
+        operator.setBatchMode(false);
+        Properties result = operator.resolvePaths(input);
+        assertEquals(result.getProperty(SONAR_JAVA_LIBRARIES), batchResult.getProperty(SONAR_JAVA_LIBRARIES));
+        assertEquals(Sets.newHashSet(result.getProperty(SONAR_SOURCES).split(",")), Sets.newHashSet(batchResult.getProperty(SONAR_SOURCES).split(",")));
+    }
+
+    @Test
+    public void testResolvePathsWithCache() throws IOException, InterruptedException {
+        Properties input = new Properties();
+        input.put(SONAR_SOURCES, "**/main/java");
+        backdate(testBaseDir);
+
+        PathResolverOperator operator = new PathResolverOperator(new FilePath(testBaseDir));
+        operator.setCacheKey("testResolvePathsWithCache");
+        Properties result = operator.resolvePaths(input);
+        assertEquals(1, result.getProperty(SONAR_SOURCES).split(",").length);
+        assertEquals(result, operator.resolvePaths(input));
+
+        new File(testBaseDir, "project_0/src/other/main/java").mkdirs();
+        assertEquals(2, operator.resolvePaths(input).getProperty(SONAR_SOURCES).split(",").length);
+
+        PathResolverOperator.invalidate("testResolvePathsWithCache");
+    }
+
+    @Test
+    public void testResolvePathsWithCacheOnOtherNode() throws IOException, InterruptedException {
+        Properties input = new Properties();
+        input.put(SONAR_SOURCES, "**/main/java");
+        long time = (System.currentTimeMillis() - 60000L) / 1000 * 1000;
+        backdate(testBaseDir, time);
+
+        PathResolverOperator operator = new PathResolverOperator(new FilePath(testBaseDir));
+        operator.setCacheKey("testResolvePathsWithCacheOnOtherNode");
+        operator.setNodeName("agent1");
+        assertEquals(1, operator.resolvePaths(input).getProperty(SONAR_SOURCES).split(",").length);
+
+        // same workspace path on another node, where the folders have the same modification times
+        new File(testBaseDir, "project_0/src/other/main/java").mkdirs();
+        backdate(testBaseDir, time);
+        assertEquals(1, operator.resolvePaths(input).getProperty(SONAR_SOURCES).split(",").length);
+        operator.setNodeName("agent2");
+        assertEquals(2, operator.resolvePaths(input).getProperty(SONAR_SOURCES).split(",").length);
+
+        PathResolverOperator.invalidate("testResolvePathsWithCacheOnOtherNode");
+    }
+
+    private static void backdate(File folder) {
+        backdate(folder, System.currentTimeMillis() - 60000L);
+    }
+
+    private static void backdate(File folder, long time) {
+        folder.setLastModified(time);
+        File[] children = folder.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    backdate(child, time);
+                }
+            }
+        }
+    }
+}
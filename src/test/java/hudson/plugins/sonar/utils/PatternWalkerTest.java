@@ -0,0 +1,130 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import com.google.common.collect.Sets;
+import hudson.FilePath;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PatternWalkerTest {
+
+    private static final int AMOUNT_OF_PROJECTS = 3;
+    private File testBaseDir = new File("target/testDir");
+
+    @Before
+    public void before() throws IOException {
+        WorkspaceCreationHelper.createFolderStructure(testBaseDir, AMOUNT_OF_PROJECTS);
+        new File(testBaseDir, "project_1/.git/src/main/java").mkdirs();
+        new File(testBaseDir, "project_1/.git/lib.jar").createNewFile();
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(testBaseDir);
+    }
+
+    @Test
+    public void testWalkMatchesAllPatterns() throws IOException {
+        PatternWalker walker = new PatternWalker();
+        walker.addPattern("sources", "**/main/java", true);
+        walker.addPattern("sources", "project_0/src/test/", true);
+        walker.addPattern("libraries", "**/*.jar", false);
+        walker.addPattern("empty", "**/unknown", true);
+
+        Map<String, Set<String>> result = walker.walk(testBaseDir);
+
+        assertEquals(3, result.size());
+        assertEquals(AMOUNT_OF_PROJECTS + 3, result.get("sources").size());
+        assertEquals(AMOUNT_OF_PROJECTS, result.get("libraries").size());
+        assertTrue(result.get("empty").isEmpty());
+    }
+
+    @Test
+    public void testWalkIsConsistentWithAntScanner() throws IOException, InterruptedException {
+        String[] folderPatterns = {"**/main/java", "**/src/*", "project_1/**", "*/src/"};
+        for (String pattern : folderPatterns) {
+            PatternWalker walker = new PatternWalker();
+            walker.addPattern("key", pattern, true);
+            assertEquals(pattern, toPaths(FilePathUtils.listFolder(new FilePath(testBaseDir), pattern)), walker.walk(testBaseDir).get("key"));
+        }
+        String[] filePatterns = {"**/*.jar", "project_2/**/*.jar", "*.jar"};
+        for (String pattern : filePatterns) {
+            PatternWalker walker = new PatternWalker();
+            walker.addPattern("key", pattern, false);
+            assertEquals(pattern, toPaths(new FilePath(testBaseDir).list(pattern)), walker.walk(testBaseDir).get("key"));
+        }
+    }
+
+    @Test
+    public void testParallelWalkMatchesSequentialWalk() throws IOException, InterruptedException {
+        PatternWalker walker = new PatternWalker();
+        walker.addPattern("sources", "**/main/java", true);
+        walker.addPattern("libraries", "**/*.jar", false);
+        walker.addPattern("all", "**", true);
+
+        assertEquals(walker.walk(testBaseDir), walker.walk(testBaseDir, 4));
+    }
+
+    @Test(expected = IOException.class)
+    public void testAbsolutePatternIsRejected() throws IOException {
+        new PatternWalker().addPattern("key", "/absolute/path", true);
+    }
+
+    @Test
+    public void testBaseDirCanMatch() throws IOException {
+        PatternWalker walker = new PatternWalker();
+        walker.addPattern("key", "**", true);
+        assertTrue(walker.walk(testBaseDir).get("key").contains(testBaseDir.getPath()));
+        assertEquals(Sets.newHashSet(), Sets.intersection(walker.walk(testBaseDir).get("key"), Sets.newHashSet(new File(testBaseDir, "project_1/.git").getPath())));
+    }
+
+    private static Set<String> toPaths(FilePath[] filePaths) {
+        Set<String> paths = Sets.newHashSet();
+        for (FilePath filePath : filePaths) {
+            paths.add(filePath.getRemote());
+        }
+        return paths;
+    }
+}
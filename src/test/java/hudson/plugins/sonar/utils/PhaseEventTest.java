@@ -0,0 +1,61 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PhaseEventTest {
+
+  @Test
+  public void testEventTypeIsDefinedWhenFlightRecorderIsAvailable() {
+    boolean flightRecorder;
+    try {
+      Class.forName("jdk.jfr.EventFactory");
+      flightRecorder = true;
+    } catch (ClassNotFoundException e) {
+      flightRecorder = false;
+    }
+    assertThat(PhaseEvent.isAvailable()).isEqualTo(flightRecorder);
+  }
+
+  @Test
+  public void testEventsAcceptMissingValues() {
+    PhaseEvent.begin(PhaseEvent.PATH_RESOLUTION, null, null).commit(null, 0);
+    PhaseEvent.begin(PhaseEvent.LAUNCH, "folder/job", "default").commit("sonar-runner", 1);
+    PhaseEvent.record(PhaseEvent.URL_EXTRACTION, null, null, null, 0, 0);
+    PhaseEvent.record(PhaseEvent.URL_EXTRACTION, "folder/job", "default", "http://sonar/dashboard/index/key", 120, 3);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReverseLogScannerTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void shouldFindLastUrl() throws IOException {
+    File log = log("foo\n"
+      + "[INFO] ANALYSIS SUCCESSFUL, you can browse http://sonar:9000/dashboard/index/first\n"
+      + "bar\n"
+      + "[INFO] ANALYSIS SUCCESSFUL, you can browse http://sonar:9000/dashboard/index/second\r\n"
+      + "baz\n");
+
+    assertThat(new ReverseLogScanner().findLastUrl(log, UTF8)).isEqualTo("http://sonar:9000/dashboard/index/second");
+    // lines spanning several blocks
+    assertThat(new ReverseLogScanner(7).findLastUrl(log, UTF8)).isEqualTo("http://sonar:9000/dashboard/index/second");
+  }
+
+  @Test
+  public void shouldFindUrlOnFirstAndLastLine() throws IOException {
+    File first = log("ANALYSIS SUCCESSFUL, you can browse http://sonar:9000/dashboard/index/first\nfoo");
+    assertThat(new ReverseLogScanner(5).findLastUrl(first, UTF8)).isEqualTo("http://sonar:9000/dashboard/index/first");
+
+    File last = log("foo\nANALYSIS SUCCESSFUL, you can browse http://sonar:9000/dashboard/index/last");
+    assertThat(new ReverseLogScanner(5).findLastUrl(last, UTF8)).isEqualTo("http://sonar:9000/dashboard/index/last");
+  }
+
+  @Test
+  public void shouldReturnNullWithoutUrl() throws IOException {
+    assertThat(new ReverseLogScanner().findLastUrl(log(""), UTF8)).isNull();
+    assertThat(new ReverseLogScanner(3).findLastUrl(log("foo\nbar\n"), UTF8)).isNull();
+  }
+
+  private File log(String content) throws IOException {
+    File log = temp.newFile();
+    FileUtils.writeStringToFile(log, content, "UTF-8");
+    return log;
+  }
+}
@@ -84,6 +84,14 @@ public class SonarMavenTest {
     assertThat(result).contains("-Dsonar.password=sonarpassword");
   }
 
+  @Test
+  public void shouldPrependQuickStartJvmOptions() {
+    assertThat(SonarMaven.getMavenOpts(null, true)).isEqualTo(SonarMaven.QUICK_START_JVM_OPTIONS);
+    assertThat(SonarMaven.getMavenOpts("-Xmx1g", true)).isEqualTo(SonarMaven.QUICK_START_JVM_OPTIONS + " -Xmx1g");
+    assertThat(SonarMaven.getMavenOpts("-Xmx1g", false)).isEqualTo("-Xmx1g");
+    assertThat(SonarMaven.getMavenOpts(null, false)).isNull();
+  }
+
   @Test
   public void shouldReturnTarget() {
     SonarInstallation installation = mock(SonarInstallation.class);
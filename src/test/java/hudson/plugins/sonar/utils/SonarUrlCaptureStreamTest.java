@@ -0,0 +1,90 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SonarUrlCaptureStreamTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  @Test
+  public void shouldForwardOutputAndCaptureUrl() throws Exception {
+    ByteArrayOutputStream log = new ByteArrayOutputStream();
+    SonarUrlCaptureStream stream = new SonarUrlCaptureStream(log, UTF8);
+    String output = "foo\n" +
+      "[INFO] [16:36:31.386] ANALYSIS SUCCESSFUL, you can browse http://sonar:9000/dashboard/index/myproject:onbranch\r\n"
+      + "bar";
+    stream.write(output.getBytes(UTF8));
+    stream.close();
+
+    assertThat(stream.getUrl()).isEqualTo("http://sonar:9000/dashboard/index/myproject:onbranch");
+    assertThat(new String(log.toByteArray(), UTF8)).isEqualTo(output);
+  }
+
+  @Test
+  public void shouldCaptureUrlOnLastLineWithoutTerminator() throws Exception {
+    SonarUrlCaptureStream stream = new SonarUrlCaptureStream(new ByteArrayOutputStream(), UTF8);
+    stream.write("ANALYSIS SUCCESSFUL, you can browse http://sonar:9000/dashboard/index/myproject".getBytes(UTF8));
+    assertThat(stream.getUrl()).isNull();
+    stream.close();
+
+    assertThat(stream.getUrl()).isEqualTo("http://sonar:9000/dashboard/index/myproject");
+  }
+
+  @Test
+  public void shouldCaptureUploadTimeAndFirstOutput() throws Exception {
+    SonarUrlCaptureStream stream = new SonarUrlCaptureStream(new ByteArrayOutputStream(), UTF8);
+    assertThat(stream.getFirstOutputTime()).isZero();
+    stream.write("INFO: Sensor Lines Sensor\nINFO: Analysis report uploaded in 164ms\n".getBytes(UTF8));
+    stream.close();
+
+    assertThat(stream.getFirstOutputTime()).isPositive();
+    assertThat(stream.getUploadTime()).isEqualTo(164);
+  }
+
+  @Test
+  public void shouldNotCaptureAnythingWithoutMarker() throws Exception {
+    SonarUrlCaptureStream stream = new SonarUrlCaptureStream(new ByteArrayOutputStream(), UTF8);
+    stream.write("foo\nbar\n".getBytes(UTF8));
+    stream.close();
+
+    assertThat(stream.getUrl()).isNull();
+  }
+}
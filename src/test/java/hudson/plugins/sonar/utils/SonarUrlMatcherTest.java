@@ -0,0 +1,81 @@
+/*
+ * Jenkins Plugin for SonarQube, open source software quality management tool.
+ * mailto:contact AT sonarsource DOT com
+ *
+ * Jenkins Plugin for SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Jenkins Plugin for SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+/*
+ * Sonar is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * Sonar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Sonar; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package hudson.plugins.sonar.utils;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SonarUrlMatcherTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  @Test
+  public void shouldExtractUrlFromBytes() {
+    byte[] line = "xx[INFO] ANALYSIS SUCCESSFUL, you can browse http://sonar:9000/dashboard/index/myproject\r\nyy".getBytes(UTF8);
+    assertThat(SonarUrlMatcher.extract(line, 2, line.length - 2, UTF8)).isEqualTo("http://sonar:9000/dashboard/index/myproject");
+    assertThat(SonarUrlMatcher.extract(line, 0, 20, UTF8)).isNull();
+  }
+
+  @Test
+  public void shouldExtractUrlFromChars() {
+    char[] line = "[INFO] ANALYSIS SUCCESSFUL, you can browse http://sonar:9000/dashboard/index/myproject".toCharArray();
+    assertThat(SonarUrlMatcher.extract(line, 0, line.length)).isEqualTo("http://sonar:9000/dashboard/index/myproject");
+    assertThat(SonarUrlMatcher.extract("ANALYSIS SUCCESSFUL".toCharArray(), 0, 19)).isNull();
+  }
+
+  @Test
+  public void shouldUseLastMarkerOfLine() {
+    String line = "ANALYSIS SUCCESSFUL, you can browse ANALYSIS SUCCESSFUL, you can browse http://foo";
+    assertThat(SonarUrlMatcher.extract(line.toCharArray(), 0, line.length())).isEqualTo("http://foo");
+    assertThat(SonarUtils.extractSonarProjectURLFromLine(line)).isEqualTo("http://foo");
+  }
+
+  @Test
+  public void shouldFindMarkerAmongNonAsciiCharacters() {
+    String line = "é€ ANALYSIS SUCCESSFUL, you can browse http://sonar/é";
+    byte[] bytes = line.getBytes(UTF8);
+    assertThat(SonarUrlMatcher.extract(bytes, 0, bytes.length, UTF8)).isEqualTo("http://sonar/é");
+    assertThat(SonarUrlMatcher.extract(line.toCharArray(), 0, line.length())).isEqualTo("http://sonar/é");
+  }
+
+  @Test
+  public void shouldDetectAsciiCompatibleCharsets() {
+    assertThat(SonarUrlMatcher.supportsBytes(UTF8)).isTrue();
+    assertThat(SonarUrlMatcher.supportsBytes(Charset.forName("ISO-8859-1"))).isTrue();
+    assertThat(SonarUrlMatcher.supportsBytes(Charset.forName("UTF-16"))).isFalse();
+  }
+}
@@ -37,6 +37,7 @@ import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.Run;
 import hudson.plugins.sonar.BuildSonarAction;
+import org.apache.commons.lang.StringUtils;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -57,6 +58,17 @@ public class SonarUtilsTest {
     assertThat(SonarUtils.extractSonarProjectURLFromLogs(mockedBuild(log))).isEqualTo("http://sonar:9000/dashboard/index/myproject:onbranch");
   }
 
+  @Test
+  public void shouldParseUrlInLogsSpanningSeveralReads() throws Exception {
+    StringBuilder log = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      log.append("[INFO] some output line ").append(i).append('\n');
+    }
+    log.append("[INFO] ANALYSIS SUCCESSFUL, you can browse http://sonar:9000/dashboard/index/myproject\r\n");
+    log.append(StringUtils.repeat("x", 20000));
+    assertThat(SonarUtils.extractSonarProjectURLFromLogs(mockedBuild(log.toString()))).isEqualTo("http://sonar:9000/dashboard/index/myproject");
+  }
+
   @Test
   public void shouldGetLastSuccessfulBuildUrl() throws Exception {
     // Given